@@ -0,0 +1,227 @@
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ * AdmissionController limits how many database calls of each priority class run at once.
+ * Every class has its own concurrency limit and a bounded wait queue. When the queue is full,
+ * or a caller has waited longer than the class allows, the call is rejected immediately
+ * instead of piling up more connections inside MySQL.
+ *
+ * Limits adapt to observed latency (additive increase, multiplicative decrease), once per
+ * latency window rather than once per call, so the size of an adjustment does not depend on how
+ * many calls happened to finish together. A window is slow when more than 1% of its calls missed
+ * the class's target latency, i.e. its p99 was over target. After a slow window a class shrinks
+ * its limit by 10%; after a window in which it used its whole limit without being slow, it grows
+ * by one.
+ *
+ * INTERACTIVE is the class being protected, so its own slowness never shrinks it: a slow
+ * INTERACTIVE window halves the lower classes instead, since they are the load competing with it.
+ * Bulk admin work therefore gives way to self-service lookups rather than the other way round.
+ */
+public class AdmissionController {
+
+    public enum Priority {
+        INTERACTIVE,   // single-employee reads for self-service
+        ADMIN_SEARCH,  // HR searches that may return many rows
+        BULK_WRITE     // threshold updates and other multi-row writes
+    }
+
+    private static final class Lane {
+        final int minLimit;
+        final int maxLimit;
+        final int maxQueue;
+        final long targetLatencyNanos;
+        final long maxWaitNanos;
+        final long windowNanos;
+        final Condition available;
+
+        double limit;
+        int inFlight;
+        int waiting;
+        long admitted;
+        long rejected;
+
+        // Current latency window
+        long windowStart = System.nanoTime();
+        int windowCalls;
+        int windowSlow;
+        boolean windowSaturated;
+
+        Lane(ReentrantLock lock, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+             long targetLatencyMillis, long maxWaitMillis) {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.maxQueue = maxQueue;
+            this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            this.windowNanos = Math.max(targetLatencyNanos, TimeUnit.MILLISECONDS.toNanos(MIN_WINDOW_MILLIS));
+            this.available = lock.newCondition();
+            this.limit = initialLimit;
+        }
+
+        boolean hasCapacity() {
+            return inFlight < (int) limit;
+        }
+    }
+
+    private static final long MIN_WINDOW_MILLIS = 100;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+
+    public AdmissionController() {
+        lanes.put(Priority.INTERACTIVE, new Lane(lock, 16, 4, 64, 200, 50, 200));
+        lanes.put(Priority.ADMIN_SEARCH, new Lane(lock, 4, 1, 16, 20, 500, 2000));
+        lanes.put(Priority.BULK_WRITE, new Lane(lock, 1, 1, 4, 4, 2000, 5000));
+    }
+
+    // Replaces the settings of one class; meant to be called before the controller is in use
+    public void configure(Priority priority, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                          long targetLatencyMillis, long maxWaitMillis) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || maxQueue < 0) {
+            throw new IllegalArgumentException("Invalid admission limits for " + priority);
+        }
+        lock.lock();
+        try {
+            lanes.put(priority, new Lane(lock, initialLimit, minLimit, maxLimit, maxQueue,
+                    targetLatencyMillis, maxWaitMillis));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Runs operation once a slot in the given class is free.
+     * Throws RejectedExecutionException if the class queue is full or the wait times out.
+     */
+    public <T> T call(Priority priority, Supplier<T> operation) {
+        Lane lane = acquire(priority);
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            release(priority, lane, System.nanoTime() - start);
+        }
+    }
+
+    private Lane acquire(Priority priority) {
+        lock.lock();
+        try {
+            Lane lane = lanes.get(priority);
+            if (lane.waiting == 0 && lane.hasCapacity()) {
+                admit(lane);
+                return lane;
+            }
+            lane.windowSaturated = true;
+            if (lane.waiting >= lane.maxQueue) {
+                lane.rejected++;
+                throw new RejectedExecutionException(priority + " queue is full");
+            }
+
+            lane.waiting++;
+            try {
+                long remaining = lane.maxWaitNanos;
+                while (!lane.hasCapacity()) {
+                    if (remaining <= 0) {
+                        lane.rejected++;
+                        throw new RejectedExecutionException(priority + " wait timed out");
+                    }
+                    remaining = lane.available.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.rejected++;
+                throw new RejectedExecutionException("Interrupted while waiting for " + priority, e);
+            } finally {
+                lane.waiting--;
+            }
+            admit(lane);
+            return lane;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void admit(Lane lane) {
+        lane.inFlight++;
+        lane.admitted++;
+        if (!lane.hasCapacity()) {
+            lane.windowSaturated = true;
+        }
+    }
+
+    private void release(Priority priority, Lane lane, long latencyNanos) {
+        lock.lock();
+        try {
+            lane.inFlight--;
+            lane.windowCalls++;
+            if (latencyNanos > lane.targetLatencyNanos) {
+                lane.windowSlow++;
+            }
+            long now = System.nanoTime();
+            if (now - lane.windowStart >= lane.windowNanos) {
+                adjust(priority, lane);
+                lane.windowStart = now;
+                lane.windowCalls = 0;
+                lane.windowSlow = 0;
+                lane.windowSaturated = lane.inFlight >= (int) lane.limit;
+            }
+            lane.available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies one AIMD step for the window that just ended
+    private void adjust(Priority priority, Lane lane) {
+        boolean slow = lane.windowSlow * 100 > lane.windowCalls;
+        if (slow) {
+            if (priority == Priority.INTERACTIVE) {
+                throttleBelow(priority);
+            } else {
+                lane.limit = Math.max(lane.minLimit, lane.limit * 0.9);
+            }
+        } else if (lane.windowSaturated) {
+            // Only grow when the class was actually using its whole limit
+            lane.limit = Math.min(lane.maxLimit, lane.limit + 1);
+        }
+    }
+
+    private void throttleBelow(Priority priority) {
+        for (Map.Entry<Priority, Lane> entry : lanes.entrySet()) {
+            if (entry.getKey().ordinal() > priority.ordinal()) {
+                Lane lower = entry.getValue();
+                lower.limit = Math.max(lower.minLimit, lower.limit * 0.5);
+            }
+        }
+    }
+
+    public int getLimit(Priority priority) {
+        lock.lock();
+        try {
+            return (int) lanes.get(priority).limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getStats(Priority priority) {
+        lock.lock();
+        try {
+            Lane lane = lanes.get(priority);
+            return priority + "{limit=" + (int) lane.limit +
+                    ", inFlight=" + lane.inFlight +
+                    ", waiting=" + lane.waiting +
+                    ", admitted=" + lane.admitted +
+                    ", rejected=" + lane.rejected +
+                    '}';
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/*
+ * AdmittedEmployeeDAO is EmployeeDAO behind an AdmissionController.
+ * Each method is assigned a priority class and, when the controller rejects it,
+ * fails the same way EmployeeDAO does on a database error (null, empty list, false or -1).
+ */
+public class AdmittedEmployeeDAO {
+    private static final AdmissionController controller = new AdmissionController();
+
+    public static AdmissionController getController() {
+        return controller;
+    }
+
+    private static void printRejected(RejectedExecutionException e) {
+        System.out.println("Error: System busy, please try again (" + e.getMessage() + ").");
+    }
+
+    public static EmployeeData getEmployeeById(int empId) {
+        try {
+            return controller.call(AdmissionController.Priority.INTERACTIVE,
+                    () -> EmployeeDAO.getEmployeeById(empId));
+        } catch (RejectedExecutionException e) {
+            printRejected(e);
+            return null;
+        }
+    }
+
+    public static boolean updateEmployee(int empId, EmployeeData employeeData) {
+        try {
+            return controller.call(AdmissionController.Priority.INTERACTIVE,
+                    () -> EmployeeDAO.updateEmployee(empId, employeeData));
+        } catch (RejectedExecutionException e) {
+            printRejected(e);
+            return false;
+        }
+    }
+
+    public static List<EmployeeData> searchByEmployeeId(int empId) {
+        return search(AdmissionController.Priority.INTERACTIVE, () -> EmployeeDAO.searchByEmployeeId(empId));
+    }
+
+    public static List<EmployeeData> searchByName(String firstName, String lastName) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.searchByName(firstName, lastName));
+    }
+
+    public static List<EmployeeData> searchByDepartment(String department) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.searchByDepartment(department));
+    }
+
+    public static List<EmployeeData> searchByEmail(String email) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.searchByEmail(email));
+    }
+
+    public static List<EmployeeData> searchByMultipleCriteria(Map<String, Object> criteria) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.searchByMultipleCriteria(criteria));
+    }
+
+    public static List<EmployeeData> searchByDOBRange(int fromDOB, int toDOB) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.searchByDOBRange(fromDOB, toDOB));
+    }
+
+    public static List<EmployeeData> searchByHireDateRange(LocalDate from, LocalDate to) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.searchByHireDateRange(from, to));
+    }
+
+    public static List<EmployeeData> getEmployeesBelowThreshold(double threshold) {
+        return search(AdmissionController.Priority.ADMIN_SEARCH, () -> EmployeeDAO.getEmployeesBelowThreshold(threshold));
+    }
+
+    public static int updateSalariesBelowThreshold(double threshold, double newSalary) {
+        try {
+            return controller.call(AdmissionController.Priority.BULK_WRITE,
+                    () -> EmployeeDAO.updateSalariesBelowThreshold(threshold, newSalary));
+        } catch (RejectedExecutionException e) {
+            printRejected(e);
+            return -1;
+        }
+    }
+
+    public static SalaryRuleEngine.Preview previewSalaryRules(List<SalaryRule> rules, int sampleSize) {
+        try {
+            return controller.call(AdmissionController.Priority.ADMIN_SEARCH,
+                    () -> SalaryRuleEngine.preview(rules, sampleSize));
+        } catch (RejectedExecutionException e) {
+            printRejected(e);
+            return null;
+        }
+    }
+
+    public static int applySalaryRules(List<SalaryRule> rules, SalaryRuleEngine.Preview preview) {
+        try {
+            return controller.call(AdmissionController.Priority.BULK_WRITE,
+                    () -> SalaryRuleEngine.apply(rules, preview));
+        } catch (RejectedExecutionException e) {
+            printRejected(e);
+            return -1;
+        }
+    }
+
+    private static List<EmployeeData> search(AdmissionController.Priority priority,
+                                             Supplier<List<EmployeeData>> query) {
+        try {
+            return controller.call(priority, query);
+        } catch (RejectedExecutionException e) {
+            printRejected(e);
+            return new ArrayList<>();
+        }
+    }
+}
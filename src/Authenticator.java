@@ -6,9 +6,10 @@ import java.sql.*;
  * and returns the object allowing access to either admin or employee menu.
  */
 public class Authenticator {
-    private static final String url = "jdbc:mysql://localhost:3306/employeeData";
-    private static final String user = "root";
-    private static final String password = "password";  // Change here
+    // Overridable with -DemployeeData.url=... etc. to point at another database (e.g. for load tests)
+    private static final String url = System.getProperty("employeeData.url", "jdbc:mysql://localhost:3306/employeeData");
+    private static final String user = System.getProperty("employeeData.user", "root");
+    private static final String password = System.getProperty("employeeData.password", "password");  // Change here
 
     public static User login(String username, String passwordInput){
         
@@ -0,0 +1,86 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * EmployeeCache is a read-through cache of employees by empid that stays coherent across nodes
+ * by listening on an InvalidationBus. Entries are dropped when any node writes the employee,
+ * when a salary update may have touched them, or entirely when the bus detects lost messages.
+ *
+ * A load that races with an invalidation is not cached: every invalidation bumps an epoch, and
+ * a row is only stored if the epoch has not moved since its load started. Callers get copies,
+ * so changing a returned object never changes the cache.
+ *
+ * While the bus reports itself unhealthy (a node went silent, so invalidations may be lost)
+ * nothing is cached and every read goes to the database.
+ */
+public class EmployeeCache implements InvalidationBus.Listener {
+    private final InvalidationBus bus;
+    private final Map<Integer, EmployeeData> entries = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public EmployeeCache(InvalidationBus bus) {
+        this.bus = bus;
+        bus.addListener(this);
+    }
+
+    public EmployeeData getEmployeeById(int empId) {
+        EmployeeData cached = entries.get(empId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copy(cached);
+        }
+        misses.incrementAndGet();
+
+        long loadEpoch = epoch.get();
+        EmployeeData loaded = EmployeeDAO.getEmployeeById(empId);
+        if (loaded == null) {
+            return null;
+        }
+        if (bus.isHealthy() && epoch.get() == loadEpoch) {
+            entries.put(empId, loaded);
+            // An invalidation may have landed between the check and the put
+            if (epoch.get() != loadEpoch) {
+                entries.remove(empId, loaded);
+            }
+        }
+        return copy(loaded);
+    }
+
+    public void invalidateEmployee(int empId) {
+        epoch.incrementAndGet();
+        entries.remove(empId);
+    }
+
+    public void invalidateSalaryBelow(double threshold) {
+        epoch.incrementAndGet();
+        entries.values().removeIf(emp -> emp.getSalary() < threshold);
+    }
+
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static EmployeeData copy(EmployeeData emp) {
+        EmployeeData copy = new EmployeeData(emp.getEmpId(), emp.getFirstName(), emp.getLastName(),
+                emp.getEmail(), emp.getPhone(), emp.getDepartment(), emp.getPosition(), emp.getSalary(),
+                emp.getHireDate(), emp.getAddress(), emp.getDOB(), emp.getSSN());
+        copy.clearChanges();
+        return copy;
+    }
+}
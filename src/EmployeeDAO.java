@@ -1,28 +1,55 @@
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 public class EmployeeDAO {
-    private static final String url = "jdbc:mysql://localhost:3306/employeeData";
-    private static final String user = "root";
-    private static final String password = "password";
+    // Overridable with -DemployeeData.url=... etc. to point at another database (e.g. for load tests)
+    private static final String url = System.getProperty("employeeData.url", "jdbc:mysql://localhost:3306/employeeData");
+    private static final String user = System.getProperty("employeeData.user", "root");
+    private static final String password = System.getProperty("employeeData.password", "password");
 
-    private static Connection getConnection() throws SQLException {
+    // dob_yyyymmdd is derived from DOB (ddmmyyyy) by the database, so no write path has to keep it in step
+    private static final String DOB_SORTABLE_EXPRESSION =
+            "MOD(DOB, 10000) * 10000 + MOD(FLOOR(DOB / 10000), 100) * 100 + FLOOR(DOB / 1000000)";
+    static final String DOB_SORTABLE_COLUMN = "INT GENERATED ALWAYS AS (" + DOB_SORTABLE_EXPRESSION + ") STORED";
+
+    // When set, every committed write is announced so other nodes can drop cached copies
+    private static volatile InvalidationBus invalidationBus;
+
+    static Connection getConnection() throws SQLException {
         return DriverManager.getConnection(url, user, password);
     }
 
-    private static boolean employeeExists(int empId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM employees WHERE empid = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, empId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
+    public static void setInvalidationBus(InvalidationBus bus) {
+        invalidationBus = bus;
+    }
+
+    static void publishEmployeeChanged(int empId) {
+        InvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            bus.publishEmployee(empId);
+        }
+    }
+
+    static void publishSalariesBelowChanged(double threshold) {
+        InvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            bus.publishSalaryBelow(threshold);
+        }
+    }
+
+    static void publishAllChanged() {
+        InvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            bus.publishAll();
         }
-        return false;
     }
 
     private static boolean isValidEmail(String email) {
@@ -33,124 +60,242 @@ public class EmployeeDAO {
     }
 
     private static EmployeeData mapResultSetToEmployeeData(ResultSet rs) throws SQLException {
-        EmployeeData emp = new EmployeeData();
-        emp.setEmpId(rs.getInt("empid"));
-        emp.setFirstName(rs.getString("first_name"));
-        emp.setLastName(rs.getString("last_name"));
-        emp.setEmail(rs.getString("email"));
-        emp.setPhone(rs.getString("phone"));
-        emp.setDepartment(rs.getString("department"));
-        emp.setPosition(rs.getString("position"));
-        emp.setSalary(rs.getDouble("salary"));
-        emp.setHireDate(rs.getString("hire_date"));
-        emp.setAddress(rs.getString("address"));
-        return emp;
+        return EmployeeRowMapper.forResultSet(rs).map(rs);
+    }
+
+    /*
+     * Mapper for a row that updates are diffed against. Every field must come from the database:
+     * a column left at its default would make a change to that default value look like a no-op.
+     */
+    private static EmployeeRowMapper diffBaseMapper(ResultSet rs) throws SQLException {
+        EmployeeRowMapper mapper = EmployeeRowMapper.forResultSet(rs);
+        if (!mapper.mapsAllColumns()) {
+            throw new SQLException("Locking read did not return every employee column.");
+        }
+        return mapper;
+    }
+
+    // Reads all remaining rows, resolving column positions once for the whole result
+    private static void mapAll(ResultSet rs, List<EmployeeData> results) throws SQLException {
+        EmployeeRowMapper mapper = EmployeeRowMapper.forResultSet(rs);
+        while (rs.next()) {
+            results.add(mapper.map(rs));
+        }
     }
 
     public static EmployeeData getEmployeeById(int empId) {
+        try (Connection conn = getConnection()) {
+            return getEmployeeById(conn, empId);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving employee: " + e.getMessage());
+        }
+        return null;
+    }
+
+    static EmployeeData getEmployeeById(Connection conn, int empId) throws SQLException {
         String sql = "SELECT * FROM employees WHERE empid = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, empId);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
                 return mapResultSetToEmployeeData(rs);
             }
-        } catch (SQLException e) {
-            System.out.println("Error retrieving employee: " + e.getMessage());
         }
         return null;
     }
 
+    /*
+     * Writes only the fields the caller set on employeeData (see EmployeeData change tracking)
+     * and only where they differ from the current row. The row is read with FOR UPDATE in the
+     * same transaction so the diff and the write see the same data. An update whose changes all
+     * match the current row succeeds without issuing an UPDATE.
+     */
     public static boolean updateEmployee(int empId, EmployeeData employeeData) {
-        try {
-            if (!employeeExists(empId)) {
-                System.out.println("Error: Employee with ID " + empId + " does not exist.");
+        if (!isValidUpdate(employeeData)) {
+            return false;
+        }
+
+        try (Connection conn = getConnection()) {
+            return updateEmployee(conn, empId, employeeData);
+        } catch (SQLException e) {
+            System.out.println("Error updating employee: " + e.getMessage());
+            return false;
+        }
+    }
+
+    static boolean isValidUpdate(EmployeeData employeeData) {
+        if (!employeeData.hasChanges()) {
+            System.out.println("Error: No fields to update.");
+            return false;
+        }
+
+        if (employeeData.isChanged(EmployeeData.EMAIL)
+                && employeeData.getEmail() != null && !employeeData.getEmail().isEmpty()) {
+            if (!isValidEmail(employeeData.getEmail())) {
+                System.out.println("Error: Invalid email format.");
                 return false;
             }
+        }
+
+        if (employeeData.isChanged(EmployeeData.SALARY) && employeeData.getSalary() < 0) {
+            System.out.println("Error: Salary must be positive.");
+            return false;
+        }
+        return true;
+    }
 
-            if (employeeData.getEmail() != null && !employeeData.getEmail().isEmpty()) {
-                if (!isValidEmail(employeeData.getEmail())) {
-                    System.out.println("Error: Invalid email format.");
-                    return false;
+    // Runs the locked read, diff and write of updateEmployee as one transaction on conn
+    static boolean updateEmployee(Connection conn, int empId, EmployeeData employeeData) throws SQLException {
+        conn.setAutoCommit(false);
+
+        try {
+            EmployeeData current = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT * FROM employees WHERE empid = ? FOR UPDATE")) {
+                pstmt.setInt(1, empId);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    current = diffBaseMapper(rs).map(rs);
                 }
             }
 
-            if (employeeData.getSalary() < 0) {
-                System.out.println("Error: Salary must be positive.");
+            if (current == null) {
+                conn.rollback();
+                System.out.println("Error: Employee with ID " + empId + " does not exist.");
                 return false;
             }
 
-            List<String> updateFields = new ArrayList<>();
             List<Object> updateValues = new ArrayList<>();
+            String sql = buildUpdate(current, employeeData, updateValues);
 
-            if (employeeData.getFirstName() != null && !employeeData.getFirstName().isEmpty()) {
-                updateFields.add("first_name = ?");
-                updateValues.add(employeeData.getFirstName());
-            }
-            if (employeeData.getLastName() != null && !employeeData.getLastName().isEmpty()) {
-                updateFields.add("last_name = ?");
-                updateValues.add(employeeData.getLastName());
-            }
-            if (employeeData.getEmail() != null && !employeeData.getEmail().isEmpty()) {
-                updateFields.add("email = ?");
-                updateValues.add(employeeData.getEmail());
-            }
-            if (employeeData.getPhone() != null && !employeeData.getPhone().isEmpty()) {
-                updateFields.add("phone = ?");
-                updateValues.add(employeeData.getPhone());
-            }
-            if (employeeData.getDepartment() != null && !employeeData.getDepartment().isEmpty()) {
-                updateFields.add("department = ?");
-                updateValues.add(employeeData.getDepartment());
-            }
-            if (employeeData.getPosition() != null && !employeeData.getPosition().isEmpty()) {
-                updateFields.add("position = ?");
-                updateValues.add(employeeData.getPosition());
-            }
-            if (employeeData.getSalary() > 0) {
-                updateFields.add("salary = ?");
-                updateValues.add(employeeData.getSalary());
-            }
-            if (employeeData.getHireDate() != null && !employeeData.getHireDate().isEmpty()) {
-                updateFields.add("hire_date = ?");
-                updateValues.add(employeeData.getHireDate());
-            }
-            if (employeeData.getAddress() != null && !employeeData.getAddress().isEmpty()) {
-                updateFields.add("address = ?");
-                updateValues.add(employeeData.getAddress());
+            if (sql == null) {
+                // Nothing differs from the stored row, so skip the write entirely
+                conn.rollback();
+                return true;
             }
 
-            if (updateFields.isEmpty()) {
-                System.out.println("Error: No fields to update.");
-                return false;
+            if (salaryChanges(current, employeeData)) {
+                SalaryHistoryDAO.captureChange(conn, empId, employeeData.getSalary());
             }
 
-            String sql = "UPDATE employees SET " + String.join(", ", updateFields) + " WHERE empid = ?";
-            updateValues.add(empId);
-
-            try (Connection conn = getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                for (int i = 0; i < updateValues.size(); i++) {
-                    Object value = updateValues.get(i);
-                    if (value instanceof String) {
-                        pstmt.setString(i + 1, (String) value);
-                    } else if (value instanceof Double) {
-                        pstmt.setDouble(i + 1, (Double) value);
-                    } else if (value instanceof Integer) {
-                        pstmt.setInt(i + 1, (Integer) value);
-                    }
-                }
-
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                bindParameters(pstmt, updateValues);
                 int rowsAffected = pstmt.executeUpdate();
+                conn.commit();
+                if (rowsAffected > 0) {
+                    publishEmployeeChanged(empId);
+                }
                 return rowsAffected > 0;
             }
 
         } catch (SQLException e) {
-            System.out.println("Error updating employee: " + e.getMessage());
-            return false;
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /*
+     * Builds the UPDATE for the fields of changes that differ from current and fills values with its
+     * parameters (ending with the empid). Returns null when nothing differs.
+     */
+    static String buildUpdate(EmployeeData current, EmployeeData changes, List<Object> values) {
+        List<String> updateFields = new ArrayList<>();
+        collectChangedColumns(current, changes, updateFields, values);
+        if (updateFields.isEmpty()) {
+            return null;
+        }
+        values.add(current.getEmpId());
+        return "UPDATE employees SET " + String.join(", ", updateFields) + " WHERE empid = ?";
+    }
+
+    static boolean salaryChanges(EmployeeData current, EmployeeData changes) {
+        return changes.isChanged(EmployeeData.SALARY) && changes.getSalary() != current.getSalary();
+    }
+
+    // Locks and returns the current rows for empIds, keyed by empid; missing ids are absent from the map
+    static Map<Integer, EmployeeData> getEmployeesForUpdate(Connection conn, Collection<Integer> empIds)
+            throws SQLException {
+        Map<Integer, EmployeeData> rows = new HashMap<>();
+        if (empIds.isEmpty()) {
+            return rows;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(empIds.size(), "?"));
+        String sql = "SELECT * FROM employees WHERE empid IN (" + placeholders + ") ORDER BY empid FOR UPDATE";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int empId : empIds) {
+                pstmt.setInt(index++, empId);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            EmployeeRowMapper mapper = diffBaseMapper(rs);
+            while (rs.next()) {
+                EmployeeData emp = mapper.map(rs);
+                rows.put(emp.getEmpId(), emp);
+            }
+        }
+        return rows;
+    }
+
+    // Adds "column = ?" for each field marked changed on changes whose value differs from current
+    private static void collectChangedColumns(EmployeeData current, EmployeeData changes,
+                                              List<String> fields, List<Object> values) {
+        addIfDifferent(changes, EmployeeData.FIRST_NAME, "first_name",
+                current.getFirstName(), changes.getFirstName(), fields, values);
+        addIfDifferent(changes, EmployeeData.LAST_NAME, "last_name",
+                current.getLastName(), changes.getLastName(), fields, values);
+        addIfDifferent(changes, EmployeeData.EMAIL, "email",
+                current.getEmail(), changes.getEmail(), fields, values);
+        addIfDifferent(changes, EmployeeData.PHONE, "phone",
+                current.getPhone(), changes.getPhone(), fields, values);
+        addIfDifferent(changes, EmployeeData.DEPARTMENT, "department",
+                current.getDepartment(), changes.getDepartment(), fields, values);
+        addIfDifferent(changes, EmployeeData.POSITION, "position",
+                current.getPosition(), changes.getPosition(), fields, values);
+        addIfDifferent(changes, EmployeeData.SALARY, "salary",
+                current.getSalary(), changes.getSalary(), fields, values);
+        if (addIfDifferent(changes, EmployeeData.HIRE_DATE, "hire_date",
+                current.getHireDate(), changes.getHireDate(), fields, values)) {
+            // Keep the sortable hire_day mirror in step (dob_yyyymmdd is generated by MySQL)
+            fields.add("hire_day = ?");
+            values.add(EmployeeDates.toSqlHireDay(changes.getHireDate()));
+        }
+        addIfDifferent(changes, EmployeeData.ADDRESS, "address",
+                current.getAddress(), changes.getAddress(), fields, values);
+        addIfDifferent(changes, EmployeeData.DOB_FIELD, "DOB",
+                current.getDOB(), changes.getDOB(), fields, values);
+        addIfDifferent(changes, EmployeeData.SSN_FIELD, "SSN",
+                current.getSSN(), changes.getSSN(), fields, values);
+    }
+
+    // Returns true if the column was added to the update
+    private static boolean addIfDifferent(EmployeeData changes, int field, String column,
+                                          Object currentValue, Object newValue,
+                                          List<String> fields, List<Object> values) {
+        if (changes.isChanged(field) && !Objects.equals(currentValue, newValue)) {
+            fields.add(column + " = ?");
+            values.add(newValue);
+            return true;
+        }
+        return false;
+    }
+
+    static void bindParameters(PreparedStatement pstmt, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                pstmt.setNull(i + 1, Types.VARCHAR);
+            } else if (value instanceof String) {
+                pstmt.setString(i + 1, (String) value);
+            } else if (value instanceof Double) {
+                pstmt.setDouble(i + 1, (Double) value);
+            } else if (value instanceof Integer) {
+                pstmt.setInt(i + 1, (Integer) value);
+            } else if (value instanceof java.sql.Date) {
+                pstmt.setDate(i + 1, (java.sql.Date) value);
+            }
         }
     }
 
@@ -162,9 +307,7 @@ public class EmployeeDAO {
             pstmt.setInt(1, empId);
             ResultSet rs = pstmt.executeQuery();
             
-            while (rs.next()) {
-                results.add(mapResultSetToEmployeeData(rs));
-            }
+            mapAll(rs, results);
         } catch (SQLException e) {
             System.out.println("Error searching employee: " + e.getMessage());
         }
@@ -172,6 +315,15 @@ public class EmployeeDAO {
     }
 
     public static List<EmployeeData> searchByName(String firstName, String lastName) {
+        try (Connection conn = getConnection()) {
+            return searchByName(conn, firstName, lastName);
+        } catch (SQLException e) {
+            System.out.println("Error searching employees by name: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    static List<EmployeeData> searchByName(Connection conn, String firstName, String lastName) throws SQLException {
         List<EmployeeData> results = new ArrayList<>();
         StringBuilder sql = new StringBuilder("SELECT * FROM employees WHERE 1=1");
         List<Object> params = new ArrayList<>();
@@ -185,36 +337,35 @@ public class EmployeeDAO {
             params.add("%" + lastName + "%");
         }
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
             
             for (int i = 0; i < params.size(); i++) {
                 pstmt.setString(i + 1, (String) params.get(i));
             }
             
             ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                results.add(mapResultSetToEmployeeData(rs));
-            }
-        } catch (SQLException e) {
-            System.out.println("Error searching employees by name: " + e.getMessage());
+            mapAll(rs, results);
         }
         return results;
     }
 
     public static List<EmployeeData> searchByDepartment(String department) {
+        try (Connection conn = getConnection()) {
+            return searchByDepartment(conn, department);
+        } catch (SQLException e) {
+            System.out.println("Error searching employees by department: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    static List<EmployeeData> searchByDepartment(Connection conn, String department) throws SQLException {
         List<EmployeeData> results = new ArrayList<>();
         String sql = "SELECT * FROM employees WHERE LOWER(department) LIKE LOWER(?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, "%" + department + "%");
             ResultSet rs = pstmt.executeQuery();
             
-            while (rs.next()) {
-                results.add(mapResultSetToEmployeeData(rs));
-            }
-        } catch (SQLException e) {
-            System.out.println("Error searching employees by department: " + e.getMessage());
+            mapAll(rs, results);
         }
         return results;
     }
@@ -227,9 +378,7 @@ public class EmployeeDAO {
             pstmt.setString(1, email);
             ResultSet rs = pstmt.executeQuery();
             
-            while (rs.next()) {
-                results.add(mapResultSetToEmployeeData(rs));
-            }
+            mapAll(rs, results);
         } catch (SQLException e) {
             System.out.println("Error searching employee by email: " + e.getMessage());
         }
@@ -244,9 +393,7 @@ public class EmployeeDAO {
             pstmt.setInt(1, DOB);
             ResultSet rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return mapResultSetToEmployeeData(rs);
-            }
+            mapAll(rs, results);
         } catch (SQLException e) {
             System.out.println("Error searching employee by date of birth: " + e.getMessage());
         }
@@ -261,9 +408,7 @@ public class EmployeeDAO {
             pstmt.setInt(1, SSN);
             ResultSet rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return mapResultSetToEmployeeData(rs);
-            }
+            mapAll(rs, results);
         } catch (SQLException e) {
             System.out.println("Error searching employee by social security number: " + e.getMessage());
         }
@@ -272,7 +417,153 @@ public class EmployeeDAO {
 
     
 
+    // Born between two dates inclusive, both in the same ddmmyyyy style as searchByDOB
+    public static List<EmployeeData> searchByDOBRange(int fromDOB, int toDOB) {
+        LocalDate from = EmployeeDates.dobToDate(fromDOB);
+        LocalDate to = EmployeeDates.dobToDate(toDOB);
+        if (from == null || to == null) {
+            System.out.println("Error: Invalid date of birth, expected ddmmyyyy.");
+            return new ArrayList<>();
+        }
+        return searchByDOBRange(from, to);
+    }
+
+    public static List<EmployeeData> searchByDOBRange(LocalDate from, LocalDate to) {
+        List<EmployeeData> results = new ArrayList<>();
+        String sql = "SELECT * FROM employees WHERE dob_yyyymmdd BETWEEN ? AND ? ORDER BY dob_yyyymmdd";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, EmployeeDates.toSortable(from));
+            pstmt.setInt(2, EmployeeDates.toSortable(to));
+            ResultSet rs = pstmt.executeQuery();
+            
+            mapAll(rs, results);
+        } catch (SQLException e) {
+            System.out.println("Error searching employees by date of birth range: " + e.getMessage());
+        }
+        return results;
+    }
+
+    // Employees aged minAge to maxAge (inclusive, in whole years) on the given day
+    public static List<EmployeeData> searchByAgeBand(int minAge, int maxAge, LocalDate asOf) {
+        if (minAge < 0 || maxAge < minAge) {
+            System.out.println("Error: Invalid age band.");
+            return new ArrayList<>();
+        }
+        LocalDate earliestBirth = asOf.minusYears(maxAge + 1L).plusDays(1);
+        LocalDate latestBirth = asOf.minusYears(minAge);
+        return searchByDOBRange(earliestBirth, latestBirth);
+    }
+
+    public static List<EmployeeData> searchByHireDateRange(LocalDate from, LocalDate to) {
+        List<EmployeeData> results = new ArrayList<>();
+        String sql = "SELECT * FROM employees WHERE hire_day BETWEEN ? AND ? ORDER BY hire_day";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, java.sql.Date.valueOf(from));
+            pstmt.setDate(2, java.sql.Date.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+            
+            mapAll(rs, results);
+        } catch (SQLException e) {
+            System.out.println("Error searching employees by hire date range: " + e.getMessage());
+        }
+        return results;
+    }
+
+    public static List<EmployeeData> searchHiredInLastDays(int days) {
+        LocalDate today = LocalDate.now();
+        return searchByHireDateRange(today.minusDays(days), today);
+    }
+
+    /*
+     * Adds the indexed dob_yyyymmdd and hire_day columns to an existing employees table and fills
+     * hire_day from hire_date. dob_yyyymmdd is a generated column, so MySQL fills and maintains it.
+     * Safe to run again; it only fills rows that are still missing values.
+     */
+    public static boolean migrateDateColumns() {
+        try (Connection conn = getConnection()) {
+            migrateDateColumns(conn);
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Error migrating date columns: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Runs the migration on the database conn points at, e.g. one shard
+    static void migrateDateColumns(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!hasColumn(conn, "dob_yyyymmdd")) {
+                // Embedded databases used for test shards only know the standard, non-STORED form
+                String column = isMySql(conn) ? DOB_SORTABLE_COLUMN
+                        : "INT GENERATED ALWAYS AS (" + DOB_SORTABLE_EXPRESSION + ")";
+                stmt.executeUpdate("ALTER TABLE employees ADD COLUMN dob_yyyymmdd " + column);
+                stmt.executeUpdate("CREATE INDEX idx_employees_dob ON employees (dob_yyyymmdd)");
+            }
+            if (!hasColumn(conn, "hire_day")) {
+                stmt.executeUpdate("ALTER TABLE employees ADD COLUMN hire_day DATE");
+                stmt.executeUpdate("CREATE INDEX idx_employees_hire_day ON employees (hire_day)");
+            }
+        }
+
+        // Backfill in Java so every accepted date format is parsed the same way as on writes,
+        // walking the table in empid order one chunk per transaction. Rows whose hire_date
+        // cannot be parsed stay NULL and are skipped by the empid cursor.
+        String select = "SELECT empid, hire_date FROM employees " +
+                "WHERE empid > ? AND hire_day IS NULL ORDER BY empid LIMIT 1000";
+        String update = "UPDATE employees SET hire_day = ? WHERE empid = ?";
+        conn.setAutoCommit(false);
+        try (PreparedStatement query = conn.prepareStatement(select);
+             PreparedStatement pstmt = conn.prepareStatement(update)) {
+            int lastId = Integer.MIN_VALUE;
+            boolean more = true;
+            while (more) {
+                more = false;
+                query.setInt(1, lastId);
+                ResultSet rs = query.executeQuery();
+                while (rs.next()) {
+                    more = true;
+                    lastId = rs.getInt(1);
+                    List<Object> values = new ArrayList<>();
+                    values.add(EmployeeDates.toSqlHireDay(rs.getString(2)));
+                    values.add(lastId);
+                    bindParameters(pstmt, values);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    static boolean isMySql(Connection conn) throws SQLException {
+        String product = conn.getMetaData().getDatabaseProductName().toLowerCase();
+        return product.contains("mysql") || product.contains("mariadb");
+    }
+
+    // Looks only in the connection's own database; a null catalog would match any schema on the server
+    static boolean hasColumn(Connection conn, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "employees", column)) {
+            return rs.next();
+        }
+    }
+
     public static List<EmployeeData> searchByMultipleCriteria(Map<String, Object> criteria) {
+        try (Connection conn = getConnection()) {
+            return searchByMultipleCriteria(conn, criteria);
+        } catch (SQLException e) {
+            System.out.println("Error in advanced search: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    static List<EmployeeData> searchByMultipleCriteria(Connection conn, Map<String, Object> criteria) throws SQLException {
         List<EmployeeData> results = new ArrayList<>();
         StringBuilder sql = new StringBuilder("SELECT * FROM employees WHERE 1=1");
         List<Object> params = new ArrayList<>();
@@ -298,8 +589,7 @@ public class EmployeeDAO {
             params.add("%" + criteria.get("last_name") + "%");
         }
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
             
             for (int i = 0; i < params.size(); i++) {
                 Object param = params.get(i);
@@ -313,11 +603,7 @@ public class EmployeeDAO {
             }
             
             ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                results.add(mapResultSetToEmployeeData(rs));
-            }
-        } catch (SQLException e) {
-            System.out.println("Error in advanced search: " + e.getMessage());
+            mapAll(rs, results);
         }
         return results;
     }
@@ -332,17 +618,15 @@ public class EmployeeDAO {
             return -1;
         }
 
-        String sql = "UPDATE employees SET salary = ? WHERE salary < ?";
-        
         try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
             
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setDouble(1, newSalary);
-                pstmt.setDouble(2, threshold);
-                
-                int rowsAffected = pstmt.executeUpdate();
+            try {
+                int rowsAffected = updateSalariesBelowThreshold(conn, threshold, newSalary);
                 conn.commit();
+                if (rowsAffected > 0) {
+                    publishSalariesBelowChanged(threshold);
+                }
                 return rowsAffected;
                 
             } catch (SQLException e) {
@@ -359,6 +643,19 @@ public class EmployeeDAO {
         }
     }
 
+    // Executes the threshold update on conn without committing; the caller owns the transaction
+    static int updateSalariesBelowThreshold(Connection conn, double threshold, double newSalary) throws SQLException {
+        SalaryHistoryDAO.captureChanges(conn, "?", Collections.singletonList(newSalary),
+                "salary < ?", Collections.singletonList(threshold));
+
+        String sql = "UPDATE employees SET salary = ? WHERE salary < ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDouble(1, newSalary);
+            pstmt.setDouble(2, threshold);
+            return pstmt.executeUpdate();
+        }
+    }
+
     public static List<EmployeeData> getEmployeesBelowThreshold(double threshold) {
         List<EmployeeData> results = new ArrayList<>();
         String sql = "SELECT * FROM employees WHERE salary < ?";
@@ -367,13 +664,30 @@ public class EmployeeDAO {
             pstmt.setDouble(1, threshold);
             ResultSet rs = pstmt.executeQuery();
             
-            while (rs.next()) {
-                results.add(mapResultSetToEmployeeData(rs));
-            }
+            mapAll(rs, results);
         } catch (SQLException e) {
             System.out.println("Error retrieving employees: " + e.getMessage());
         }
         return results;
     }
-}
 
+    /*
+     * Streams every employee through consumer using a single reused EmployeeData (see
+     * EmployeeRowMapper.forEach), for reports and exports over the whole table.
+     * Returns the number of rows visited, or -1 on error.
+     */
+    public static int forEachEmployee(Consumer<EmployeeData> consumer) {
+        String sql = "SELECT * FROM employees ORDER BY empid";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL Connector/J streams rows one at a time only with this fetch size
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            ResultSet rs = pstmt.executeQuery();
+            return EmployeeRowMapper.forResultSet(rs).forEach(rs, consumer);
+        } catch (SQLException e) {
+            System.out.println("Error scanning employees: " + e.getMessage());
+            return -1;
+        }
+    }
+}
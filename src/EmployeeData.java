@@ -1,8 +1,25 @@
 /**
  * EmployeeData class represents employee information in the system.
  * This class is used to transfer employee data between the application and database.
+ *
+ * Every setter records the field in a changed-field bitset so that updates can
+ * write only the fields a caller actually set, including nulls and zero salaries.
  */
 public class EmployeeData {
+    // Bit flags for change tracking, one per updatable column
+    public static final int FIRST_NAME = 1;
+    public static final int LAST_NAME  = 1 << 1;
+    public static final int EMAIL      = 1 << 2;
+    public static final int PHONE      = 1 << 3;
+    public static final int DEPARTMENT = 1 << 4;
+    public static final int POSITION   = 1 << 5;
+    public static final int SALARY     = 1 << 6;
+    public static final int HIRE_DATE  = 1 << 7;
+    public static final int ADDRESS    = 1 << 8;
+    public static final int DOB_FIELD  = 1 << 9;
+    public static final int SSN_FIELD  = 1 << 10;
+    public static final int ALL_FIELDS = (1 << 11) - 1;
+
     private int empId;
     private String firstName;
     private String lastName;
@@ -15,6 +32,7 @@ public class EmployeeData {
     private String address;
     private int DOB; //style: ddmmyyyy
     private int SSN;
+    private int changedFields;
 
     // Constructor
     public EmployeeData() {
@@ -35,6 +53,40 @@ public class EmployeeData {
         this.address = address;
         this.DOB = DOB;
         this.SSN = SSN;
+        this.changedFields = ALL_FIELDS;
+    }
+
+    // Change tracking
+    public boolean isChanged(int field) {
+        return (changedFields & field) != 0;
+    }
+
+    public boolean hasChanges() {
+        return changedFields != 0;
+    }
+
+    public int getChangedFields() {
+        return changedFields;
+    }
+
+    // Called after loading from the database so the object starts clean
+    public void clearChanges() {
+        changedFields = 0;
+    }
+
+    // Copies every field changed on other into this object, so later changes win
+    public void mergeChangesFrom(EmployeeData other) {
+        if (other.isChanged(FIRST_NAME)) setFirstName(other.getFirstName());
+        if (other.isChanged(LAST_NAME)) setLastName(other.getLastName());
+        if (other.isChanged(EMAIL)) setEmail(other.getEmail());
+        if (other.isChanged(PHONE)) setPhone(other.getPhone());
+        if (other.isChanged(DEPARTMENT)) setDepartment(other.getDepartment());
+        if (other.isChanged(POSITION)) setPosition(other.getPosition());
+        if (other.isChanged(SALARY)) setSalary(other.getSalary());
+        if (other.isChanged(HIRE_DATE)) setHireDate(other.getHireDate());
+        if (other.isChanged(ADDRESS)) setAddress(other.getAddress());
+        if (other.isChanged(DOB_FIELD)) setDOB(other.getDOB());
+        if (other.isChanged(SSN_FIELD)) setSSN(other.getSSN());
     }
 
     // Getters and Setters
@@ -52,6 +104,7 @@ public class EmployeeData {
 
     public void setFirstName(String firstName) {
         this.firstName = firstName;
+        changedFields |= FIRST_NAME;
     }
 
     public String getLastName() {
@@ -60,6 +113,7 @@ public class EmployeeData {
 
     public void setLastName(String lastName) {
         this.lastName = lastName;
+        changedFields |= LAST_NAME;
     }
 
     public String getEmail() {
@@ -68,6 +122,7 @@ public class EmployeeData {
 
     public void setEmail(String email) {
         this.email = email;
+        changedFields |= EMAIL;
     }
 
     public String getPhone() {
@@ -76,6 +131,7 @@ public class EmployeeData {
 
     public void setPhone(String phone) {
         this.phone = phone;
+        changedFields |= PHONE;
     }
 
     public String getDepartment() {
@@ -84,6 +140,7 @@ public class EmployeeData {
 
     public void setDepartment(String department) {
         this.department = department;
+        changedFields |= DEPARTMENT;
     }
 
     public String getPosition() {
@@ -92,6 +149,7 @@ public class EmployeeData {
 
     public void setPosition(String position) {
         this.position = position;
+        changedFields |= POSITION;
     }
 
     public double getSalary() {
@@ -100,6 +158,7 @@ public class EmployeeData {
 
     public void setSalary(double salary) {
         this.salary = salary;
+        changedFields |= SALARY;
     }
 
     public String getHireDate() {
@@ -108,6 +167,7 @@ public class EmployeeData {
 
     public void setHireDate(String hireDate) {
         this.hireDate = hireDate;
+        changedFields |= HIRE_DATE;
     }
 
     public String getAddress() {
@@ -116,6 +176,7 @@ public class EmployeeData {
 
     public void setAddress(String address) {
         this.address = address;
+        changedFields |= ADDRESS;
     }
 
     public int getDOB(){
@@ -124,6 +185,7 @@ public class EmployeeData {
 
     public void setDOB(int DOB){
         this.DOB = DOB;
+        changedFields |= DOB_FIELD;
     }
 
     public int getSSN(){
@@ -132,6 +194,7 @@ public class EmployeeData {
 
     public void setSSN(int SSN){
         this.SSN = SSN;
+        changedFields |= SSN_FIELD;
     }
 
     @Override
@@ -0,0 +1,52 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/*
+ * EmployeeDates converts the stored date formats into sortable forms.
+ * DOB is kept as an int in ddmmyyyy form, which does not sort by date, so MySQL mirrors it into
+ * the generated dob_yyyymmdd column. hire_date is free-form text, so writes mirror it into the
+ * hire_day DATE column. Both mirrors are indexed and let range queries (born between, age bands, hired in the
+ * last N days) run as index range scans instead of full scans.
+ */
+public class EmployeeDates {
+    private static final DateTimeFormatter[] HIRE_DATE_FORMATS = {
+        DateTimeFormatter.ISO_LOCAL_DATE,         // 2021-03-15
+        DateTimeFormatter.ofPattern("yyyy/MM/dd"),
+        DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+        DateTimeFormatter.BASIC_ISO_DATE          // 20210315
+    };
+
+    public static LocalDate dobToDate(int ddmmyyyy) {
+        try {
+            return LocalDate.of(ddmmyyyy % 10000, (ddmmyyyy / 10000) % 100, ddmmyyyy / 1000000);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    public static int toSortable(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    // Parses the hire dates the application has accepted so far; returns null for anything else
+    public static LocalDate parseHireDate(String hireDate) {
+        if (hireDate == null || hireDate.trim().isEmpty()) {
+            return null;
+        }
+        for (DateTimeFormatter format : HIRE_DATE_FORMATS) {
+            try {
+                return LocalDate.parse(hireDate.trim(), format);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    public static java.sql.Date toSqlHireDay(String hireDate) {
+        LocalDate date = parseHireDate(hireDate);
+        return date == null ? null : java.sql.Date.valueOf(date);
+    }
+}
@@ -0,0 +1,107 @@
+import java.sql.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*
+ * EmployeeRowMapper turns rows of the employees table into EmployeeData objects.
+ * Column positions are looked up once per projection (the list of column labels in the
+ * ResultSetMetaData) and cached, so each row is read by index instead of by name.
+ * Columns missing from a projection are simply left at their defaults.
+ *
+ * forEach() runs in flyweight mode: one EmployeeData is refilled for every row, so
+ * scanning a large result allocates no row objects. Consumers must copy any values
+ * they want to keep because the object is overwritten on the next row.
+ */
+public class EmployeeRowMapper {
+    private static final int EMPID = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int EMAIL = 3;
+    private static final int PHONE = 4;
+    private static final int DEPARTMENT = 5;
+    private static final int POSITION = 6;
+    private static final int SALARY = 7;
+    private static final int HIRE_DATE = 8;
+    private static final int ADDRESS = 9;
+    private static final int DOB = 10;
+    private static final int SSN = 11;
+
+    private static final String[] COLUMNS = {
+        "empid", "first_name", "last_name", "email", "phone", "department",
+        "position", "salary", "hire_date", "address", "DOB", "SSN"
+    };
+
+    private static final Map<String, EmployeeRowMapper> mappersByProjection = new ConcurrentHashMap<>();
+
+    // JDBC column index for each entry of COLUMNS, or 0 when the projection does not include it
+    private final int[] indexes = new int[COLUMNS.length];
+
+    private EmployeeRowMapper(String[] labels) {
+        for (int i = 0; i < labels.length; i++) {
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (indexes[c] == 0 && COLUMNS[c].equalsIgnoreCase(labels[i])) {
+                    indexes[c] = i + 1;
+                }
+            }
+        }
+    }
+
+    // Returns the mapper for this result set's projection, building it on first use
+    public static EmployeeRowMapper forResultSet(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count];
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            key.append(labels[i]).append(',');
+        }
+        return mappersByProjection.computeIfAbsent(key.toString(), k -> new EmployeeRowMapper(labels));
+    }
+
+    // True if the projection includes every employee column, so no field is left at its default
+    public boolean mapsAllColumns() {
+        for (int index : indexes) {
+            if (index == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public EmployeeData map(ResultSet rs) throws SQLException {
+        EmployeeData emp = new EmployeeData();
+        mapInto(rs, emp);
+        return emp;
+    }
+
+    // Overwrites every mapped field of emp with the current row and leaves it with no pending changes
+    public void mapInto(ResultSet rs, EmployeeData emp) throws SQLException {
+        if (indexes[EMPID] > 0) emp.setEmpId(rs.getInt(indexes[EMPID]));
+        if (indexes[FIRST_NAME] > 0) emp.setFirstName(rs.getString(indexes[FIRST_NAME]));
+        if (indexes[LAST_NAME] > 0) emp.setLastName(rs.getString(indexes[LAST_NAME]));
+        if (indexes[EMAIL] > 0) emp.setEmail(rs.getString(indexes[EMAIL]));
+        if (indexes[PHONE] > 0) emp.setPhone(rs.getString(indexes[PHONE]));
+        if (indexes[DEPARTMENT] > 0) emp.setDepartment(rs.getString(indexes[DEPARTMENT]));
+        if (indexes[POSITION] > 0) emp.setPosition(rs.getString(indexes[POSITION]));
+        if (indexes[SALARY] > 0) emp.setSalary(rs.getDouble(indexes[SALARY]));
+        if (indexes[HIRE_DATE] > 0) emp.setHireDate(rs.getString(indexes[HIRE_DATE]));
+        if (indexes[ADDRESS] > 0) emp.setAddress(rs.getString(indexes[ADDRESS]));
+        if (indexes[DOB] > 0) emp.setDOB(rs.getInt(indexes[DOB]));
+        if (indexes[SSN] > 0) emp.setSSN(rs.getInt(indexes[SSN]));
+        emp.clearChanges();
+    }
+
+    // Streams every remaining row through one reused EmployeeData; returns the number of rows
+    public int forEach(ResultSet rs, Consumer<EmployeeData> consumer) throws SQLException {
+        EmployeeData row = new EmployeeData();
+        int count = 0;
+        while (rs.next()) {
+            mapInto(rs, row);
+            consumer.accept(row);
+            count++;
+        }
+        return count;
+    }
+}
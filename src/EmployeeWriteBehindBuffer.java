@@ -0,0 +1,231 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * EmployeeWriteBehindBuffer is an optional write-behind mode for updateEmployee, meant for
+ * integrations (badge systems, directory sync) that send bursts of small updates for the same people.
+ *
+ * submit() merges the caller's changed fields into a pending change per empid and returns a future.
+ * Every flush window the pending changes are written in batched transactions: one locking read for
+ * the whole batch, one merged UPDATE per employee that actually changed, and a single commit.
+ * Futures complete only after that commit, so an acknowledged update is durable. Callers that need
+ * read-after-write can call flush(), which writes everything submitted so far before returning.
+ */
+public class EmployeeWriteBehindBuffer implements AutoCloseable {
+
+    private static final class Pending {
+        final EmployeeData changes = new EmployeeData();
+        final List<CompletableFuture<Boolean>> waiters = new ArrayList<>();
+    }
+
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Map<Integer, Pending> pending = new LinkedHashMap<>();
+    private boolean closed;
+
+    public EmployeeWriteBehindBuffer(long flushWindowMillis, int maxBatchSize) {
+        if (flushWindowMillis <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Flush window and batch size must be positive.");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "employee-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushWindowMillis, flushWindowMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // An exception escaping a scheduled task would cancel all later flushes, so none may escape
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.out.println("Error in write-behind flush: " + e);
+        }
+    }
+
+    /*
+     * Queues the changed fields of employeeData for empId. The future completes with true once the
+     * merged change is committed (or turned out to match the stored row), and false if the update
+     * was invalid, the employee does not exist or the write failed.
+     */
+    public CompletableFuture<Boolean> submit(int empId, EmployeeData employeeData) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        if (!EmployeeDAO.isValidUpdate(employeeData)) {
+            future.complete(false);
+            return future;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer is closed.");
+            }
+            Pending entry = pending.computeIfAbsent(empId, id -> new Pending());
+            entry.changes.mergeChangesFrom(employeeData);
+            entry.waiters.add(future);
+        }
+        return future;
+    }
+
+    // Submits and waits for the durable write, for callers that want updateEmployee semantics
+    public boolean updateEmployee(int empId, EmployeeData employeeData) {
+        CompletableFuture<Boolean> future = submit(empId, employeeData);
+        flush();
+        return future.join();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /*
+     * Writes every change submitted before this call. Flushes are serialized so that two changes
+     * to the same employee are always committed in submission order.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Integer, Pending> drained;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                drained = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            List<Map.Entry<Integer, Pending>> entries = new ArrayList<>(drained.entrySet());
+            for (int from = 0; from < entries.size(); from += maxBatchSize) {
+                List<Map.Entry<Integer, Pending>> batch =
+                        entries.subList(from, Math.min(entries.size(), from + maxBatchSize));
+                try {
+                    writeBatch(batch);
+                } catch (RuntimeException e) {
+                    // Fail this batch's callers but keep going, so no later batch is stranded
+                    System.out.println("Error in write-behind batch: " + e);
+                    for (Map.Entry<Integer, Pending> entry : batch) {
+                        for (CompletableFuture<Boolean> waiter : entry.getValue().waiters) {
+                            waiter.complete(false);
+                        }
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void writeBatch(List<Map.Entry<Integer, Pending>> batch) {
+        Map<Integer, Boolean> results;
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            try {
+                results = writeBatch(conn, batch);
+            } catch (SQLException e) {
+                // One bad row should not fail the others, so retry each employee on its own
+                System.out.println("Error in batched employee update, retrying individually: " + e.getMessage());
+                results = new HashMap<>();
+                for (Map.Entry<Integer, Pending> entry : batch) {
+                    boolean ok;
+                    try {
+                        ok = EmployeeDAO.updateEmployee(conn, entry.getKey(), entry.getValue().changes);
+                    } catch (SQLException retryError) {
+                        System.out.println("Error updating employee: " + retryError.getMessage());
+                        ok = false;
+                    }
+                    results.put(entry.getKey(), ok);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+            results = Collections.emptyMap();
+        }
+
+        for (Map.Entry<Integer, Pending> entry : batch) {
+            boolean ok = results.getOrDefault(entry.getKey(), false);
+            for (CompletableFuture<Boolean> waiter : entry.getValue().waiters) {
+                waiter.complete(ok);
+            }
+        }
+    }
+
+    // Locks the batch's rows, applies one merged UPDATE per changed employee and commits once
+    private static Map<Integer, Boolean> writeBatch(Connection conn, List<Map.Entry<Integer, Pending>> batch)
+            throws SQLException {
+        Map<Integer, Boolean> results = new HashMap<>();
+        conn.setAutoCommit(false);
+        try {
+            List<Integer> empIds = new ArrayList<>();
+            for (Map.Entry<Integer, Pending> entry : batch) {
+                empIds.add(entry.getKey());
+            }
+            Map<Integer, EmployeeData> current = EmployeeDAO.getEmployeesForUpdate(conn, empIds);
+
+            // Group identical statements so each distinct column set is sent as one JDBC batch
+            Map<String, List<List<Object>>> statements = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Pending> entry : batch) {
+                int empId = entry.getKey();
+                EmployeeData row = current.get(empId);
+                if (row == null) {
+                    System.out.println("Error: Employee with ID " + empId + " does not exist.");
+                    results.put(empId, false);
+                    continue;
+                }
+                List<Object> values = new ArrayList<>();
+                String sql = EmployeeDAO.buildUpdate(row, entry.getValue().changes, values);
+                if (sql != null) {
+                    statements.computeIfAbsent(sql, k -> new ArrayList<>()).add(values);
+                }
+                if (EmployeeDAO.salaryChanges(row, entry.getValue().changes)) {
+                    SalaryHistoryDAO.captureChange(conn, empId, entry.getValue().changes.getSalary());
+                }
+                results.put(empId, true);
+            }
+
+            for (Map.Entry<String, List<List<Object>>> statement : statements.entrySet()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(statement.getKey())) {
+                    for (List<Object> values : statement.getValue()) {
+                        EmployeeDAO.bindParameters(pstmt, values);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+            conn.commit();
+            try {
+                for (List<List<Object>> updates : statements.values()) {
+                    for (List<Object> values : updates) {
+                        // buildUpdate puts the empid last
+                        EmployeeDAO.publishEmployeeChanged((Integer) values.get(values.size() - 1));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // The batch is already committed, so its callers still succeeded
+                System.out.println("Error publishing invalidations: " + e);
+            }
+            return results;
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
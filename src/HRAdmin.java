@@ -1,6 +1,8 @@
+import java.time.LocalDate;
 import java.util.*;
 
 public class HRAdmin extends User {
+    private static final int PREVIEW_SAMPLE_SIZE = 10;
     private Scanner scanner;
 
     public HRAdmin(int empId, String username, String password) {
@@ -26,7 +28,7 @@ public class HRAdmin extends User {
         
         try {
             int empId = Integer.parseInt(scanner.nextLine());
-            EmployeeData currentEmployee = EmployeeDAO.getEmployeeById(empId);
+            EmployeeData currentEmployee = AdmittedEmployeeDAO.getEmployeeById(empId);
             if (currentEmployee == null) {
                 System.out.println("Employee not found!");
                 return;
@@ -89,7 +91,7 @@ public class HRAdmin extends User {
             String address = scanner.nextLine();
             if (!address.isEmpty()) updatedData.setAddress(address);
             
-            boolean success = EmployeeDAO.updateEmployee(empId, updatedData);
+            boolean success = AdmittedEmployeeDAO.updateEmployee(empId, updatedData);
             if (success) {
                 System.out.println("Employee data updated successfully!");
             } else {
@@ -108,6 +110,8 @@ public class HRAdmin extends User {
         System.out.println("3. Search by Department");
         System.out.println("4. Search by Email");
         System.out.println("5. Advanced Search (Multiple Criteria)");
+        System.out.println("6. Search by Date of Birth Range");
+        System.out.println("7. Search by Hire Date Range");
         System.out.print("Select search option: ");
         
         try {
@@ -118,7 +122,7 @@ public class HRAdmin extends User {
                 case 1:
                     System.out.print("Enter Employee ID: ");
                     int empId = Integer.parseInt(scanner.nextLine());
-                    results = EmployeeDAO.searchByEmployeeId(empId);
+                    results = AdmittedEmployeeDAO.searchByEmployeeId(empId);
                     break;
                     
                 case 2:
@@ -130,7 +134,7 @@ public class HRAdmin extends User {
                         System.out.println("At least one name field must be provided.");
                         return;
                     }
-                    results = EmployeeDAO.searchByName(
+                    results = AdmittedEmployeeDAO.searchByName(
                         firstName.isEmpty() ? null : firstName,
                         lastName.isEmpty() ? null : lastName
                     );
@@ -139,13 +143,13 @@ public class HRAdmin extends User {
                 case 3:
                     System.out.print("Enter Department: ");
                     String department = scanner.nextLine();
-                    results = EmployeeDAO.searchByDepartment(department);
+                    results = AdmittedEmployeeDAO.searchByDepartment(department);
                     break;
                     
                 case 4:
                     System.out.print("Enter Email: ");
                     String email = scanner.nextLine();
-                    results = EmployeeDAO.searchByEmail(email);
+                    results = AdmittedEmployeeDAO.searchByEmail(email);
                     break;
                     
                 case 5:
@@ -159,7 +163,27 @@ public class HRAdmin extends User {
                     System.out.print("Enter Maximum Salary (or press Enter to skip): ");
                     String maxSalary = scanner.nextLine();
                     if (!maxSalary.isEmpty()) criteria.put("salary_max", Double.parseDouble(maxSalary));
-                    results = EmployeeDAO.searchByMultipleCriteria(criteria);
+                    results = AdmittedEmployeeDAO.searchByMultipleCriteria(criteria);
+                    break;
+                    
+                case 6:
+                    System.out.print("Enter earliest Date of Birth (ddmmyyyy): ");
+                    int fromDOB = Integer.parseInt(scanner.nextLine());
+                    System.out.print("Enter latest Date of Birth (ddmmyyyy): ");
+                    int toDOB = Integer.parseInt(scanner.nextLine());
+                    results = AdmittedEmployeeDAO.searchByDOBRange(fromDOB, toDOB);
+                    break;
+                    
+                case 7:
+                    System.out.print("Enter earliest Hire Date (yyyy-mm-dd): ");
+                    LocalDate fromHire = EmployeeDates.parseHireDate(scanner.nextLine());
+                    System.out.print("Enter latest Hire Date (yyyy-mm-dd): ");
+                    LocalDate toHire = EmployeeDates.parseHireDate(scanner.nextLine());
+                    if (fromHire == null || toHire == null) {
+                        System.out.println("Invalid date format!");
+                        return;
+                    }
+                    results = AdmittedEmployeeDAO.searchByHireDateRange(fromHire, toHire);
                     break;
                     
                 default:
@@ -200,21 +224,6 @@ public class HRAdmin extends User {
                 return;
             }
             
-            List<EmployeeData> affectedEmployees = EmployeeDAO.getEmployeesBelowThreshold(threshold);
-            if (affectedEmployees.isEmpty()) {
-                System.out.println("No employees found with salary below $" + threshold);
-                return;
-            }
-            
-            System.out.println("\nEmployees that will be affected (" + affectedEmployees.size() + " employee(s)):");
-            System.out.println("----------------------------------------------------------------------------");
-            for (EmployeeData emp : affectedEmployees) {
-                System.out.println("ID: " + emp.getEmpId() + 
-                                 " | Name: " + emp.getFirstName() + " " + emp.getLastName() + 
-                                 " | Current Salary: $" + emp.getSalary());
-            }
-            System.out.println("----------------------------------------------------------------------------");
-            
             System.out.print("Enter new salary amount: $");
             double newSalary = Double.parseDouble(scanner.nextLine());
             
@@ -223,7 +232,33 @@ public class HRAdmin extends User {
                 return;
             }
             
-            System.out.print("Are you sure you want to update " + affectedEmployees.size() + 
+            List<SalaryRule> rules = Collections.singletonList(
+                    SalaryRule.setTo(newSalary).salaryBelow(threshold));
+            SalaryRuleEngine.Preview preview = AdmittedEmployeeDAO.previewSalaryRules(rules, PREVIEW_SAMPLE_SIZE);
+            if (preview == null) {
+                System.out.println("Error occurred during preview.");
+                return;
+            }
+            if (preview.getAffectedCount() == 0) {
+                System.out.println("No employees with salary below $" + threshold + " need a change.");
+                return;
+            }
+            
+            System.out.println("\nEmployees that will be affected (" + preview.getAffectedCount() + " employee(s)):");
+            System.out.println("Total payroll change: $" + preview.getTotalDelta());
+            System.out.println("----------------------------------------------------------------------------");
+            for (SalaryRuleEngine.Row row : preview.getSample()) {
+                System.out.println("ID: " + row.getEmpId() + 
+                                 " | Name: " + row.getFirstName() + " " + row.getLastName() + 
+                                 " | Current Salary: $" + row.getCurrentSalary() +
+                                 " | New Salary: $" + row.getNewSalary());
+            }
+            if (preview.getAffectedCount() > preview.getSample().size()) {
+                System.out.println("... and " + (preview.getAffectedCount() - preview.getSample().size()) + " more");
+            }
+            System.out.println("----------------------------------------------------------------------------");
+            
+            System.out.print("Are you sure you want to update " + preview.getAffectedCount() + 
                            " employee(s)? (yes/no): ");
             String confirmation = scanner.nextLine();
             
@@ -232,7 +267,7 @@ public class HRAdmin extends User {
                 return;
             }
             
-            int updatedCount = EmployeeDAO.updateSalariesBelowThreshold(threshold, newSalary);
+            int updatedCount = AdmittedEmployeeDAO.applySalaryRules(rules, preview);
             if (updatedCount > 0) {
                 System.out.println("Successfully updated " + updatedCount + " employee(s).");
             } else if (updatedCount == 0) {
@@ -0,0 +1,296 @@
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/*
+ * InvalidationBus tells the other application instances sharing the database which cached
+ * employees are stale. Messages go over UDP multicast (TTL 1, so they stay on the local network)
+ * and are applied to local listeners at once, before they are sent.
+ *
+ * Each node numbers its messages. Receivers track the last number seen per sender; a gap means a
+ * message was lost, so the listeners are told to drop everything (resync) rather than risk serving
+ * a stale salary. Heartbeats carry the sender's latest number, so a lost final message is also
+ * noticed within one heartbeat interval.
+ *
+ * Silence is treated the same way: if a known sender is not heard from for SILENT_HEARTBEATS
+ * intervals, or receiving fails, the bus tells the listeners to drop everything and reports itself
+ * unhealthy until that sender is heard again, so caches stop caching rather than trust a channel
+ * that may be losing messages. A sender quiet for FORGET_HEARTBEATS intervals is assumed to have
+ * stopped and is forgotten; if it comes back it is treated as new and triggers a resync. A node
+ * that closes its bus says so, and is forgotten at once.
+ *
+ * Several JVMs on one Linux host can exchange messages through the multicast loopback; run
+ * "java InvalidationBus listen" in some terminals and "java InvalidationBus send <empid>" in another.
+ */
+public class InvalidationBus implements AutoCloseable {
+
+    public interface Listener {
+        void invalidateEmployee(int empId);
+
+        // Every employee whose salary was below threshold before the write may have changed
+        void invalidateSalaryBelow(double threshold);
+
+        // Drop everything: used for broad writes and when messages were lost
+        void invalidateAll();
+    }
+
+    public static final String DEFAULT_GROUP = "239.255.42.99";
+    public static final int DEFAULT_PORT = 4446;
+
+    private static final int MAGIC = 0x45494231; // "EIB1"
+    private static final byte EMPLOYEE = 1;
+    private static final byte SALARY_BELOW = 2;
+    private static final byte ALL = 3;
+    private static final byte HEARTBEAT = 4;
+    private static final byte LEAVE = 5;
+    private static final int MESSAGE_SIZE = 4 + 1 + 8 + 8 + 8;
+    private static final long HEARTBEAT_MILLIS = 1000;
+    private static final int SILENT_HEARTBEATS = 3;
+    private static final int FORGET_HEARTBEATS = 60;
+
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final InetSocketAddress group;
+    private final MulticastSocket socket;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, Long> lastSequenceBySender = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastHeardBySender = new ConcurrentHashMap<>(); // System.nanoTime()
+    private final ScheduledExecutorService heartbeat;
+    private final Thread receiver;
+    private long sequence;
+    private volatile boolean running = true;
+    private volatile boolean receiveFailed;
+    private volatile boolean healthy = true;
+
+    public InvalidationBus() throws IOException {
+        this(DEFAULT_GROUP, DEFAULT_PORT, null);
+    }
+
+    // networkInterface may be null to let the OS pick the interface for the group
+    public InvalidationBus(String groupAddress, int port, NetworkInterface networkInterface) throws IOException {
+        this.group = new InetSocketAddress(InetAddress.getByName(groupAddress), port);
+        this.socket = new MulticastSocket(port);
+        socket.setTimeToLive(1);
+        socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.joinGroup(group, networkInterface);
+
+        receiver = new Thread(this::receiveLoop, "invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "invalidation-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleAtFixedRate(() -> send(HEARTBEAT, 0), HEARTBEAT_MILLIS, HEARTBEAT_MILLIS,
+                TimeUnit.MILLISECONDS);
+        heartbeat.scheduleAtFixedRate(this::checkLiveness, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * False while a known sender has gone silent or receiving is failing. Invalidations may be
+     * getting lost in that state, so callers should not cache anything until it is true again.
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void publishEmployee(int empId) {
+        for (Listener listener : listeners) {
+            listener.invalidateEmployee(empId);
+        }
+        send(EMPLOYEE, empId);
+    }
+
+    public void publishSalaryBelow(double threshold) {
+        for (Listener listener : listeners) {
+            listener.invalidateSalaryBelow(threshold);
+        }
+        send(SALARY_BELOW, Double.doubleToLongBits(threshold));
+    }
+
+    public void publishAll() {
+        for (Listener listener : listeners) {
+            listener.invalidateAll();
+        }
+        send(ALL, 0);
+    }
+
+    public void close() {
+        heartbeat.shutdownNow();
+        send(LEAVE, 0);
+        running = false;
+        socket.close();
+    }
+
+    private void send(byte type, long payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(MESSAGE_SIZE);
+        synchronized (this) {
+            // Heartbeats and the leave notice repeat the current number; every real message takes the next one
+            long seq = type == HEARTBEAT || type == LEAVE ? sequence : ++sequence;
+            buffer.putInt(MAGIC).put(type).putLong(nodeId).putLong(seq).putLong(payload);
+            try {
+                socket.send(new DatagramPacket(buffer.array(), MESSAGE_SIZE, group));
+            } catch (IOException e) {
+                // Peers will see the gap on the next message or heartbeat and resync
+                System.out.println("Error sending invalidation: " + e.getMessage());
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        byte[] data = new byte[MESSAGE_SIZE];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        while (running) {
+            try {
+                packet.setLength(data.length);
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (running) {
+                    receiveFailed = true;
+                    System.out.println("Error receiving invalidation: " + e.getMessage());
+                }
+                continue;
+            }
+            if (packet.getLength() != MESSAGE_SIZE) {
+                continue;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.getInt() != MAGIC) {
+                continue;
+            }
+            byte type = buffer.get();
+            long sender = buffer.getLong();
+            long seq = buffer.getLong();
+            long payload = buffer.getLong();
+            if (sender == nodeId) {
+                continue; // already applied locally when published
+            }
+            handle(type, sender, seq, payload);
+        }
+    }
+
+    private void handle(byte type, long sender, long seq, long payload) {
+        if (type == LEAVE) {
+            // Anything it published before leaving was numbered; a gap still means a lost message
+            if (seq > lastSequenceBySender.getOrDefault(sender, 0L)) {
+                resync(sender, seq);
+            }
+            lastHeardBySender.remove(sender);
+            lastSequenceBySender.remove(sender);
+            return;
+        }
+        lastHeardBySender.put(sender, System.nanoTime());
+
+        // A sender seen for the first time counts as starting from zero, so joining after it has
+        // already published (and possibly missing some of that) also triggers a resync
+        long last = lastSequenceBySender.getOrDefault(sender, 0L);
+        if (type == HEARTBEAT) {
+            if (seq > last) {
+                resync(sender, seq);
+            }
+            return;
+        }
+
+        if (seq <= last) {
+            return; // duplicate or reordered message that is already covered
+        }
+        if (seq != last + 1) {
+            resync(sender, seq);
+            return;
+        }
+        lastSequenceBySender.put(sender, seq);
+
+        for (Listener listener : listeners) {
+            if (type == EMPLOYEE) {
+                listener.invalidateEmployee((int) payload);
+            } else if (type == SALARY_BELOW) {
+                listener.invalidateSalaryBelow(Double.longBitsToDouble(payload));
+            } else {
+                listener.invalidateAll();
+            }
+        }
+    }
+
+    // Runs every heartbeat interval; an exception escaping it would cancel all later checks
+    private void checkLiveness() {
+        try {
+            long now = System.nanoTime();
+            long silentAfter = TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MILLIS * SILENT_HEARTBEATS);
+            long forgetAfter = TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MILLIS * FORGET_HEARTBEATS);
+            boolean ok = !receiveFailed;
+            receiveFailed = false;
+            for (Iterator<Map.Entry<Long, Long>> it = lastHeardBySender.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Long> entry = it.next();
+                long silence = now - entry.getValue();
+                if (silence > forgetAfter) {
+                    it.remove();
+                    lastSequenceBySender.remove(entry.getKey());
+                } else if (silence > silentAfter) {
+                    ok = false;
+                }
+            }
+
+            boolean wasHealthy = healthy;
+            // Mark unhealthy before dropping caches, so no load can be stored in between
+            healthy = ok;
+            if (wasHealthy && !ok) {
+                System.out.println("Invalidation bus unhealthy: a node went silent or receiving failed");
+                for (Listener listener : listeners) {
+                    listener.invalidateAll();
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error checking invalidation senders: " + e);
+        }
+    }
+
+    // Lost messages from sender: drop everything and continue from its current number
+    private void resync(long sender, long seq) {
+        lastSequenceBySender.put(sender, seq);
+        for (Listener listener : listeners) {
+            listener.invalidateAll();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        InvalidationBus bus = new InvalidationBus();
+        bus.addListener(new Listener() {
+            public void invalidateEmployee(int empId) {
+                System.out.println("invalidate employee " + empId);
+            }
+
+            public void invalidateSalaryBelow(double threshold) {
+                System.out.println("invalidate salaries below " + threshold);
+            }
+
+            public void invalidateAll() {
+                System.out.println("invalidate all");
+            }
+        });
+
+        if (args.length >= 2 && args[0].equals("send")) {
+            bus.publishEmployee(Integer.parseInt(args[1]));
+            bus.close();
+        } else {
+            System.out.println("Listening on " + DEFAULT_GROUP + ":" + DEFAULT_PORT + " (Ctrl+C to stop)");
+            Thread.currentThread().join();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/*
+ * LoadTest seeds the employees and user_accounts tables with synthetic data and replays a
+ * mixed workload against them from many concurrent clients.
+ *
+ *   java LoadTest seed employees=1000000 threads=8 createSchema=true
+ *   java LoadTest migrate     (adds the sortable date columns and the salary history table)
+ *   java LoadTest run employees=1000000 clients=64 seconds=60
+ *        mix=login:20,getById:40,searchByName:10,searchByDepartment:5,searchByMultipleCriteria:5,updateEmployee:19,updateSalaries:1
+ *
+ * The database is the one EmployeeDAO and Authenticator use; pass -DemployeeData.url=...
+ * (plus .user/.password) to aim it at a local or embedded database. Seeded accounts are
+ * user<empid> / pw<empid>, and every 100th employee is HR. With admitted=true the DAO calls
+ * go through AdmittedEmployeeDAO so admission control can be compared against the bare DAO.
+ */
+public class LoadTest {
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Carlos", "Maria",
+        "Wei", "Priya", "Ahmed", "Fatima", "Kenji", "Yuki", "Olga", "Ivan", "Aisha", "Mateo"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Nguyen", "Patel", "Kim", "Chen", "Singh", "Khan", "Ivanova", "Tanaka", "Silva"
+    };
+    private static final String[] DEPARTMENTS = {
+        "Engineering", "Sales", "Marketing", "Finance", "Human Resources", "Operations", "Support", "Legal"
+    };
+    private static final String[] POSITIONS = {
+        "Associate", "Analyst", "Specialist", "Senior Specialist", "Manager", "Senior Manager", "Director"
+    };
+    private static final double[] POSITION_BASE_SALARY = {
+        42000, 55000, 62000, 78000, 95000, 120000, 160000
+    };
+    private static final String[] STREETS = {
+        "Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Pine St", "Elm St", "Washington Blvd", "Lake Rd"
+    };
+
+    private static final String[] OPERATIONS = {
+        "login", "getById", "searchByName", "searchByDepartment", "searchByMultipleCriteria",
+        "updateEmployee", "updateSalaries"
+    };
+    private static final String DEFAULT_MIX =
+        "login:20,getById:40,searchByName:10,searchByDepartment:5,searchByMultipleCriteria:5,updateEmployee:19,updateSalaries:1";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: java LoadTest seed|migrate|run [key=value ...]");
+            return;
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq > 0) {
+                options.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+            }
+        }
+        int employees = Integer.parseInt(options.getOrDefault("employees", "100000"));
+
+        if (args[0].equals("seed")) {
+            int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+            if (Boolean.parseBoolean(options.getOrDefault("createSchema", "false"))) {
+                createSchema();
+            }
+            seed(employees, threads);
+        } else if (args[0].equals("migrate")) {
+            EmployeeDAO.migrateDateColumns();
+            SalaryHistoryDAO.createTable();
+        } else if (args[0].equals("run")) {
+            int clients = Integer.parseInt(options.getOrDefault("clients", "32"));
+            int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+            boolean admitted = Boolean.parseBoolean(options.getOrDefault("admitted", "false"));
+            run(employees, clients, seconds, parseMix(options.getOrDefault("mix", DEFAULT_MIX)), admitted);
+        } else {
+            System.out.println("Unknown command: " + args[0]);
+        }
+    }
+
+    // ---------------------------------------------------------------- data generation
+
+    private static void createSchema() throws SQLException {
+        try (Connection conn = EmployeeDAO.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS employees (" +
+                    "empid INT PRIMARY KEY, first_name VARCHAR(50), last_name VARCHAR(50), " +
+                    "email VARCHAR(100), phone VARCHAR(20), department VARCHAR(50), position VARCHAR(50), " +
+                    "salary DECIMAL(12,2), hire_date VARCHAR(20), address VARCHAR(200), DOB INT, SSN INT, " +
+                    "dob_yyyymmdd " + EmployeeDAO.DOB_SORTABLE_COLUMN + ", hire_day DATE, " +
+                    "INDEX idx_employees_dob (dob_yyyymmdd), INDEX idx_employees_hire_day (hire_day))");
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS user_accounts (" +
+                    "empid INT PRIMARY KEY, username VARCHAR(50) UNIQUE, password VARCHAR(100), role VARCHAR(20))");
+        }
+        SalaryHistoryDAO.createTable();
+    }
+
+    /*
+     * Inserts employees 1..count and one account per employee, split into id ranges across threads.
+     * Rows are generated from a seed per empid, so reseeding produces the same data.
+     */
+    private static void seed(int count, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong inserted = new AtomicLong();
+        long start = System.nanoTime();
+        int perThread = (count + threads - 1) / threads;
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int from = t * perThread + 1;
+            int to = Math.min(count, (t + 1) * perThread);
+            futures.add(pool.submit(() -> {
+                seedRange(from, to, inserted);
+                return null;
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Seeded %d employees in %.1f s (%.0f rows/s)%n", inserted.get(), elapsed, inserted.get() / elapsed);
+    }
+
+    private static void seedRange(int from, int to, AtomicLong inserted) throws SQLException {
+        final int batchSize = 1000;
+        String employeeSql = "INSERT INTO employees (empid, first_name, last_name, email, phone, department, " +
+                "position, salary, hire_date, address, DOB, SSN, hire_day) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String accountSql = "INSERT INTO user_accounts (empid, username, password, role) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = EmployeeDAO.getConnection();
+             PreparedStatement emp = conn.prepareStatement(employeeSql);
+             PreparedStatement acct = conn.prepareStatement(accountSql)) {
+            conn.setAutoCommit(false);
+            int pending = 0;
+            for (int id = from; id <= to; id++) {
+                Random random = new Random(id);
+                String first = pick(random, FIRST_NAMES);
+                String last = pick(random, LAST_NAMES);
+                int level = Math.min(POSITIONS.length - 1, (int) Math.abs(random.nextGaussian() * 2));
+                double salary = Math.round(POSITION_BASE_SALARY[level] * (0.85 + random.nextDouble() * 0.3));
+                int birthYear = 1960 + random.nextInt(45);
+
+                emp.setInt(1, id);
+                emp.setString(2, first);
+                emp.setString(3, last);
+                emp.setString(4, first.toLowerCase() + "." + last.toLowerCase() + id + "@example.com");
+                emp.setString(5, String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+                emp.setString(6, pick(random, DEPARTMENTS));
+                emp.setString(7, POSITIONS[level]);
+                emp.setDouble(8, salary);
+                int hireYear = Math.min(2025, Math.max(birthYear + 21, 1990) + random.nextInt(10));
+                String hireDate = String.format("%04d-%02d-%02d", hireYear, 1 + random.nextInt(12), 1 + random.nextInt(28));
+                int dob = (1 + random.nextInt(28)) * 1000000 + (1 + random.nextInt(12)) * 10000 + birthYear;
+                emp.setString(9, hireDate);
+                emp.setString(10, (1 + random.nextInt(9999)) + " " + pick(random, STREETS));
+                emp.setInt(11, dob);
+                emp.setInt(12, 100000000 + random.nextInt(800000000));
+                emp.setDate(13, EmployeeDates.toSqlHireDay(hireDate));
+                emp.addBatch();
+
+                acct.setInt(1, id);
+                acct.setString(2, "user" + id);
+                acct.setString(3, "pw" + id);
+                acct.setString(4, id % 100 == 0 ? "HR" : "Employee");
+                acct.addBatch();
+                pending++;
+
+                if (pending == batchSize || id == to) {
+                    emp.executeBatch();
+                    acct.executeBatch();
+                    conn.commit();
+                    inserted.addAndGet(pending);
+                    pending = 0;
+                }
+            }
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // ---------------------------------------------------------------- workload
+
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[OPERATIONS.length];
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            int op = Arrays.asList(OPERATIONS).indexOf(kv[0].trim());
+            if (op < 0) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + kv[0]);
+            }
+            weights[op] = Integer.parseInt(kv[1].trim());
+        }
+        return weights;
+    }
+
+    private static void run(int employees, int clients, int seconds, int[] weights, boolean admitted)
+            throws InterruptedException {
+        int totalWeight = 0;
+        for (int w : weights) {
+            totalWeight += w;
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Workload mix has no operations.");
+        }
+        final int weightSum = totalWeight;
+
+        Histogram[] latencies = new Histogram[OPERATIONS.length];
+        AtomicLong[] errors = new AtomicLong[OPERATIONS.length];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i] = new Histogram();
+            errors[i] = new AtomicLong();
+        }
+
+        // The DAO reports failures on stdout; keep that (and login chatter) out of the report
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        console.println("Running " + clients + " clients for " + seconds + " s" + (admitted ? " with admission control" : ""));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            threads[c] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(weightSum);
+                    int op = 0;
+                    while (pick >= weights[op]) {
+                        pick -= weights[op];
+                        op++;
+                    }
+                    long t0 = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = execute(op, random, employees, admitted);
+                    } catch (RuntimeException e) {
+                        ok = false;
+                    }
+                    latencies[op].record(System.nanoTime() - t0);
+                    if (!ok) {
+                        errors[op].incrementAndGet();
+                    }
+                }
+            }, "load-client-" + c);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.setOut(console);
+
+        System.out.printf("%-26s %10s %10s %8s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long total = 0;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            Histogram h = latencies[i];
+            long count = h.count();
+            total += count;
+            if (count == 0) {
+                continue;
+            }
+            System.out.printf("%-26s %10d %10.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f%n",
+                    OPERATIONS[i], count, count / elapsed, 100.0 * errors[i].get() / count,
+                    h.percentileMillis(50), h.percentileMillis(95), h.percentileMillis(99), h.maxMillis());
+        }
+        System.out.printf("%-26s %10d %10.1f%n", "total", total, total / elapsed);
+    }
+
+    // Runs one operation and returns false if it reported a failure
+    private static boolean execute(int op, ThreadLocalRandom random, int employees, boolean admitted) {
+        int empId = 1 + random.nextInt(employees);
+        switch (OPERATIONS[op]) {
+            case "login":
+                return Authenticator.login("user" + empId, "pw" + empId) != null;
+            case "getById":
+                return (admitted ? AdmittedEmployeeDAO.getEmployeeById(empId)
+                                 : EmployeeDAO.getEmployeeById(empId)) != null;
+            case "searchByName": {
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                return search(admitted, conn -> EmployeeDAO.searchByName(conn, first, last));
+            }
+            case "searchByDepartment": {
+                String department = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+                return search(admitted, conn -> EmployeeDAO.searchByDepartment(conn, department));
+            }
+            case "searchByMultipleCriteria": {
+                Map<String, Object> criteria = new HashMap<>();
+                criteria.put("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+                double min = 40000 + random.nextInt(100) * 1000;
+                criteria.put("salary_min", min);
+                criteria.put("salary_max", min + 5000);
+                return search(admitted, conn -> EmployeeDAO.searchByMultipleCriteria(conn, criteria));
+            }
+            case "updateEmployee": {
+                EmployeeData change = new EmployeeData();
+                change.setPhone(String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+                return admitted ? AdmittedEmployeeDAO.updateEmployee(empId, change)
+                                : EmployeeDAO.updateEmployee(empId, change);
+            }
+            default: {
+                // Lifts a thin slice of the lowest salaries to a floor, so repeated runs touch few rows
+                double floor = 36000 + random.nextInt(1000);
+                return (admitted ? AdmittedEmployeeDAO.updateSalariesBelowThreshold(floor, floor)
+                                 : EmployeeDAO.updateSalariesBelowThreshold(floor, floor)) >= 0;
+            }
+        }
+    }
+
+    private interface SearchQuery {
+        List<EmployeeData> run(Connection conn) throws SQLException;
+    }
+
+    /*
+     * The public search methods turn errors and rejections into an empty list, which looks like a
+     * successful search. Use the throwing overloads instead so failures count as errors.
+     */
+    private static boolean search(boolean admitted, SearchQuery query) {
+        Supplier<Boolean> call = () -> {
+            try (Connection conn = EmployeeDAO.getConnection()) {
+                query.run(conn);
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        };
+        if (!admitted) {
+            return call.get();
+        }
+        try {
+            return AdmittedEmployeeDAO.getController().call(AdmissionController.Priority.ADMIN_SEARCH, call);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Lock-free latency histogram over log2 buckets of microseconds with 16 linear sub-buckets each,
+     * so percentiles are accurate to about 6% across nanoseconds to hours without storing samples.
+     */
+    private static class Histogram {
+        private static final int SUB_BUCKETS = 16;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(1, nanos / 1000);
+            int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = magnitude < 4 ? (int) (micros & (SUB_BUCKETS - 1))
+                                    : (int) ((micros >>> (magnitude - 4)) & (SUB_BUCKETS - 1));
+            buckets.incrementAndGet(magnitude * SUB_BUCKETS + sub);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        double percentileMillis(double percentile) {
+            long target = (long) Math.ceil(count() * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target && buckets.get(i) > 0) {
+                    return bucketUpperMicros(i) / 1000.0;
+                }
+            }
+            return maxMillis();
+        }
+
+        double maxMillis() {
+            return max.get() / 1e6;
+        }
+
+        private static long bucketUpperMicros(int index) {
+            int magnitude = index / SUB_BUCKETS;
+            int sub = index % SUB_BUCKETS;
+            if (magnitude < 4) {
+                return sub + 1;
+            }
+            // The bucket holds values whose top five bits are 1 followed by sub
+            return (long) (SUB_BUCKETS + sub + 1) << (magnitude - 4);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * SalaryHistoryDAO keeps an effective-dated history of every salary change.
+ *
+ * Rows are delta-encoded per employee: the first row holds the salary at the start of the history
+ * (dated at the hire day when known, but never after the day it is written), and every later row
+ * holds the change in cents. The salary on a date is the sum of an employee's deltas up to that
+ * date, which is a range scan on the primary key (empid, effective_day, id). On MySQL the table
+ * is partitioned by year of effective_day, which lets date-bounded scans skip other years;
+ * createTable() adds the partitions for the coming year each time it runs (see addYearPartitions),
+ * so it belongs in startup or a yearly job.
+ *
+ * Changes are captured in the same transaction as the salary write by every write path
+ * (updateEmployee, the write-behind buffer, updateSalariesBelowThreshold and the salary rule engine).
+ * createTable() (or ShardedEmployeeDAO.migrate() for shards) starts the history with a baseline
+ * row for every existing employee; on a database without the table, salary writes still succeed
+ * and simply go unrecorded. Employees with no history at all are reported at their current salary.
+ */
+public class SalaryHistoryDAO {
+    private static final String BEFORE_HISTORY = "1900-01-01";
+    private static final int BASELINE_CHUNK = 10000;
+    private static final long SCHEMA_RECHECK_MILLIS = 30000;
+
+    /*
+     * What each database (by URL and catalog) supports. A complete schema is remembered for good;
+     * a missing table or hire_day column is looked up again every SCHEMA_RECHECK_MILLIS, so a
+     * migration run from elsewhere is picked up without restarting this node.
+     */
+    private static final Map<String, HistorySchema> schemas = new ConcurrentHashMap<>();
+
+    private static final class HistorySchema {
+        final boolean hasTable;
+        final boolean hasHireDay;
+        final long checkedAt; // System.nanoTime()
+
+        HistorySchema(boolean hasTable, boolean hasHireDay, long checkedAt) {
+            this.hasTable = hasTable;
+            this.hasHireDay = hasHireDay;
+            this.checkedAt = checkedAt;
+        }
+
+        boolean isCurrent(long now) {
+            return (hasTable && hasHireDay)
+                    || now - checkedAt < TimeUnit.MILLISECONDS.toNanos(SCHEMA_RECHECK_MILLIS);
+        }
+
+        String baselineDay() {
+            String beforeHistory = "DATE '" + BEFORE_HISTORY + "'";
+            // A future hire day (pre-boarding, or a misparsed date) must not sort after today's change
+            return hasHireDay ? "LEAST(COALESCE(hire_day, " + beforeHistory + "), CURRENT_DATE)" : beforeHistory;
+        }
+    }
+
+    public static class SalaryChange {
+        private final int empId;
+        private final LocalDate effectiveDate;
+        private final double oldSalary;
+        private final double newSalary;
+
+        SalaryChange(int empId, LocalDate effectiveDate, double oldSalary, double newSalary) {
+            this.empId = empId;
+            this.effectiveDate = effectiveDate;
+            this.oldSalary = oldSalary;
+            this.newSalary = newSalary;
+        }
+
+        public int getEmpId() {
+            return empId;
+        }
+
+        public LocalDate getEffectiveDate() {
+            return effectiveDate;
+        }
+
+        public double getOldSalary() {
+            return oldSalary;
+        }
+
+        public double getNewSalary() {
+            return newSalary;
+        }
+
+        @Override
+        public String toString() {
+            return "SalaryChange{" +
+                    "empId=" + empId +
+                    ", effectiveDate=" + effectiveDate +
+                    ", oldSalary=" + oldSalary +
+                    ", newSalary=" + newSalary +
+                    '}';
+        }
+    }
+
+    /*
+     * Creates the history table and baselines existing employees. On MySQL the table gets one
+     * partition per year up to next year plus a catch-all, and an existing table gets any
+     * missing years split out of the catch-all.
+     */
+    public static boolean createTable() {
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            createTable(conn);
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Error creating salary history table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Creates the table on the database conn points at, e.g. one shard. Embedded databases
+    // used for testing do not support partitioning, so the table is only partitioned on MySQL.
+    static void createTable(Connection conn) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS salary_history (" +
+                "id BIGINT NOT NULL AUTO_INCREMENT, " +
+                "empid INT NOT NULL, " +
+                "effective_day DATE NOT NULL, " +
+                "delta_cents BIGINT NOT NULL, " +
+                "PRIMARY KEY (empid, effective_day, id), " +
+                "KEY idx_salary_history_id (id), " +
+                "KEY idx_salary_history_day (effective_day))";
+        int lastYear = LocalDate.now().getYear() + 1;
+        if (EmployeeDAO.isMySql(conn)) {
+            sql += " PARTITION BY RANGE COLUMNS (effective_day) (" +
+                    "PARTITION p_before_2000 VALUES LESS THAN ('2000-01-01'), " +
+                    yearPartitions(2000, lastYear) + ")";
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+        addYearPartitions(conn, lastYear);
+        schemas.remove(schemaKey(conn));
+        insertBaselines(conn, schemaFor(conn));
+    }
+
+    /*
+     * Splits yearly partitions up to and including throughYear out of p_future, so that dates in
+     * those years are not all lumped into the catch-all. Rows already in p_future are moved.
+     * Does nothing for years that already have a partition, or when the table is not partitioned.
+     */
+    public static boolean addYearPartitions(int throughYear) {
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            addYearPartitions(conn, throughYear);
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Error adding salary history partitions: " + e.getMessage());
+            return false;
+        }
+    }
+
+    static void addYearPartitions(Connection conn, int throughYear) throws SQLException {
+        if (!EmployeeDAO.isMySql(conn)) {
+            return;
+        }
+        String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = 'salary_history' AND PARTITION_NAME IS NOT NULL";
+        boolean hasFuture = false;
+        int lastYear = 1999;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, conn.getCatalog());
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (name.equals("p_future")) {
+                    hasFuture = true;
+                } else if (name.matches("p\\d{4}")) {
+                    lastYear = Math.max(lastYear, Integer.parseInt(name.substring(1)));
+                }
+            }
+        }
+        if (!hasFuture || lastYear >= throughYear) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE salary_history REORGANIZE PARTITION p_future INTO (" +
+                    yearPartitions(lastYear + 1, throughYear) + ")");
+        }
+    }
+
+    // One partition per year from firstYear to lastYear, followed by the p_future catch-all
+    private static String yearPartitions(int firstYear, int lastYear) {
+        StringBuilder partitions = new StringBuilder();
+        for (int year = firstYear; year <= lastYear; year++) {
+            partitions.append("PARTITION p").append(year)
+                      .append(" VALUES LESS THAN ('").append(year + 1).append("-01-01'), ");
+        }
+        return partitions.append("PARTITION p_future VALUES LESS THAN (MAXVALUE)").toString();
+    }
+
+    // Gives every employee without history a baseline row, one empid range per statement
+    private static void insertBaselines(Connection conn, HistorySchema schema) throws SQLException {
+        int minId;
+        int maxId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(empid), MAX(empid) FROM employees")) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return;
+            }
+            minId = rs.getInt(1);
+            maxId = rs.getInt(2);
+        }
+
+        String sql = "INSERT INTO salary_history (empid, effective_day, delta_cents) " +
+                "SELECT empid, " + schema.baselineDay() + ", ROUND(salary * 100) FROM employees " +
+                "WHERE empid BETWEEN ? AND ? AND salary IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM salary_history h WHERE h.empid = employees.empid)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (long from = minId; from <= maxId; from += BASELINE_CHUNK) {
+                pstmt.setInt(1, (int) from);
+                pstmt.setInt(2, (int) Math.min((long) maxId, from + BASELINE_CHUNK - 1));
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static String schemaKey(Connection conn) throws SQLException {
+        return conn.getMetaData().getURL() + "/" + conn.getCatalog();
+    }
+
+    // Looked up per database rather than per write, so a missing table costs a metadata lookup
+    // every SCHEMA_RECHECK_MILLIS; each lookup that still finds it missing warns again
+    private static HistorySchema schemaFor(Connection conn) throws SQLException {
+        String key = schemaKey(conn);
+        long now = System.nanoTime();
+        HistorySchema schema = schemas.get(key);
+        if (schema == null || !schema.isCurrent(now)) {
+            boolean hasTable;
+            try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "salary_history", null)) {
+                hasTable = rs.next();
+            }
+            boolean hasHireDay = EmployeeDAO.hasColumn(conn, "hire_day");
+            if (!hasTable) {
+                System.out.println("Warning: salary_history table is missing in " + key +
+                        "; salary changes are not being recorded until createTable() is run.");
+            } else if (!hasHireDay) {
+                System.out.println("Warning: employees.hire_day is missing in " + key +
+                        "; new salary history starts at " + BEFORE_HISTORY + " until migrateDateColumns() is run.");
+            }
+            schema = new HistorySchema(hasTable, hasHireDay, now);
+            schemas.put(key, schema);
+        }
+        return schema;
+    }
+
+    /*
+     * Records the salary change for every employee matched by whereSql, where newSalarySql is the
+     * salary they are about to get. Must run on the writing transaction before the UPDATE itself.
+     * Employees without history first get a baseline row holding their current salary.
+     * Does nothing if the database has no history table.
+     */
+    static void captureChanges(Connection conn, String newSalarySql, List<Object> newSalaryParams,
+                               String whereSql, List<Object> whereParams) throws SQLException {
+        HistorySchema schema = schemaFor(conn);
+        if (!schema.hasTable) {
+            return;
+        }
+        String baseline = "INSERT INTO salary_history (empid, effective_day, delta_cents) " +
+                "SELECT empid, " + schema.baselineDay() + ", ROUND(salary * 100) " +
+                "FROM employees WHERE (" + whereSql + ") " +
+                "AND NOT EXISTS (SELECT 1 FROM salary_history h WHERE h.empid = employees.empid)";
+        try (PreparedStatement pstmt = conn.prepareStatement(baseline)) {
+            EmployeeDAO.bindParameters(pstmt, whereParams);
+            pstmt.executeUpdate();
+        }
+
+        String newCents = "ROUND((" + newSalarySql + ") * 100)";
+        String delta = "INSERT INTO salary_history (empid, effective_day, delta_cents) " +
+                "SELECT empid, CURRENT_DATE, " + newCents + " - ROUND(salary * 100) " +
+                "FROM employees WHERE (" + whereSql + ") AND " + newCents + " <> ROUND(salary * 100)";
+        List<Object> params = new ArrayList<>(newSalaryParams);
+        params.addAll(whereParams);
+        params.addAll(newSalaryParams);
+        try (PreparedStatement pstmt = conn.prepareStatement(delta)) {
+            EmployeeDAO.bindParameters(pstmt, params);
+            pstmt.executeUpdate();
+        }
+    }
+
+    static void captureChange(Connection conn, int empId, double newSalary) throws SQLException {
+        List<Object> newSalaryParams = new ArrayList<>();
+        newSalaryParams.add(newSalary);
+        List<Object> whereParams = new ArrayList<>();
+        whereParams.add(empId);
+        captureChanges(conn, "?", newSalaryParams, "empid = ?", whereParams);
+    }
+
+    /*
+     * Salary in effect at the end of the given day, or null if the employee's history starts later
+     * (not yet hired) or the employee does not exist. An employee without any history has never had
+     * a recorded change, so their current salary is returned.
+     */
+    public static Double getSalaryAsOf(int empId, LocalDate date) {
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            return getSalaryAsOf(conn, empId, date);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving salary history: " + e.getMessage());
+        }
+        return null;
+    }
+
+    static Double getSalaryAsOf(Connection conn, int empId, LocalDate date) throws SQLException {
+        String sql = "SELECT COUNT(*), SUM(CASE WHEN effective_day <= ? THEN delta_cents END) " +
+                "FROM salary_history WHERE empid = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, java.sql.Date.valueOf(date));
+            pstmt.setInt(2, empId);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next() && rs.getInt(1) > 0) {
+                return rs.getObject(2) == null ? null : rs.getLong(2) / 100.0;
+            }
+        }
+        EmployeeData employee = EmployeeDAO.getEmployeeById(conn, empId);
+        return employee == null ? null : employee.getSalary();
+    }
+
+    // Salary of every employee at the end of the given day, keyed by empid (see getSalaryAsOf)
+    public static Map<Integer, Double> getSalariesAsOf(LocalDate date) {
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            return getSalariesAsOf(conn, date);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving salary history: " + e.getMessage());
+        }
+        return new HashMap<>();
+    }
+
+    static Map<Integer, Double> getSalariesAsOf(Connection conn, LocalDate date) throws SQLException {
+        Map<Integer, Double> salaries = new HashMap<>();
+        String sql = "SELECT empid, SUM(delta_cents) FROM salary_history WHERE effective_day <= ? GROUP BY empid " +
+                "UNION ALL " +
+                "SELECT empid, ROUND(salary * 100) FROM employees WHERE salary IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM salary_history h WHERE h.empid = employees.empid)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, java.sql.Date.valueOf(date));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                salaries.put(rs.getInt(1), rs.getLong(2) / 100.0);
+            }
+        }
+        return salaries;
+    }
+
+    /*
+     * All salary changes effective between from and to (inclusive), ordered by date then empid.
+     * Finding the employees with a change in the period only reads the partitions covering it, but
+     * each of them then has their whole history up to the period end read to rebuild the running
+     * salary, so that part touches every partition up to to (in primary-key order per employee).
+     */
+    public static List<SalaryChange> getChangesInPeriod(LocalDate from, LocalDate to) {
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            return getChangesInPeriod(conn, from, to);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving salary changes: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    static List<SalaryChange> getChangesInPeriod(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        List<SalaryChange> changes = new ArrayList<>();
+        String sql = "SELECT empid, effective_day, delta_cents, salary_after FROM (" +
+                "SELECT empid, effective_day, id, delta_cents, " +
+                "SUM(delta_cents) OVER (PARTITION BY empid ORDER BY effective_day, id) AS salary_after, " +
+                "ROW_NUMBER() OVER (PARTITION BY empid ORDER BY effective_day, id) AS change_no " +
+                "FROM salary_history WHERE effective_day <= ? AND empid IN (" +
+                "SELECT empid FROM salary_history WHERE effective_day BETWEEN ? AND ?)) running " +
+                "WHERE effective_day >= ? AND change_no > 1 " +
+                "ORDER BY effective_day, empid, id";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            java.sql.Date start = java.sql.Date.valueOf(from);
+            java.sql.Date end = java.sql.Date.valueOf(to);
+            pstmt.setDate(1, end);
+            pstmt.setDate(2, start);
+            pstmt.setDate(3, end);
+            pstmt.setDate(4, start);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                long after = rs.getLong(4);
+                long delta = rs.getLong(3);
+                changes.add(new SalaryChange(rs.getInt(1), rs.getDate(2).toLocalDate(),
+                        (after - delta) / 100.0, after / 100.0));
+            }
+        }
+        return changes;
+    }
+}
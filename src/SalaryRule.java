@@ -0,0 +1,121 @@
+/*
+ * SalaryRule describes one salary adjustment: which employees it applies to
+ * (department, position, current salary below a threshold) and how their salary changes
+ * (percentage raise, flat raise or a fixed amount), optionally clamped to a floor and a cap.
+ *
+ * Rules are combined in a list and compiled by SalaryRuleEngine into a single UPDATE;
+ * an employee matched by several rules gets the first matching one.
+ */
+public class SalaryRule {
+    enum Kind { PERCENT_RAISE, FLAT_RAISE, SET_TO }
+
+    private final Kind kind;
+    private final double amount;
+    private String department;
+    private String position;
+    private Double salaryBelow;
+    private Double floor;
+    private Double cap;
+
+    private SalaryRule(Kind kind, double amount) {
+        this.kind = kind;
+        this.amount = amount;
+    }
+
+    // Raises salary by the given percentage, e.g. 3.5 for a 3.5% raise
+    public static SalaryRule percentRaise(double percent) {
+        if (percent < -100) {
+            throw new IllegalArgumentException("A raise below -100% would make salaries negative.");
+        }
+        return new SalaryRule(Kind.PERCENT_RAISE, percent);
+    }
+
+    public static SalaryRule flatRaise(double amount) {
+        return new SalaryRule(Kind.FLAT_RAISE, amount);
+    }
+
+    public static SalaryRule setTo(double salary) {
+        if (salary < 0) {
+            throw new IllegalArgumentException("New salary must be positive.");
+        }
+        return new SalaryRule(Kind.SET_TO, salary);
+    }
+
+    // Restricts the rule to one department (exact, case-insensitive)
+    public SalaryRule department(String department) {
+        this.department = department;
+        return this;
+    }
+
+    // Restricts the rule to one position (exact, case-insensitive)
+    public SalaryRule position(String position) {
+        this.position = position;
+        return this;
+    }
+
+    // Restricts the rule to employees whose current salary is below threshold
+    public SalaryRule salaryBelow(double threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must be positive.");
+        }
+        this.salaryBelow = threshold;
+        return this;
+    }
+
+    public SalaryRule floor(double floor) {
+        if (floor < 0) {
+            throw new IllegalArgumentException("Floor must be positive.");
+        }
+        this.floor = floor;
+        return this;
+    }
+
+    public SalaryRule cap(double cap) {
+        if (cap < 0) {
+            throw new IllegalArgumentException("Cap must be positive.");
+        }
+        this.cap = cap;
+        return this;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    double getAmount() {
+        return amount;
+    }
+
+    String getDepartment() {
+        return department;
+    }
+
+    String getPosition() {
+        return position;
+    }
+
+    Double getSalaryBelow() {
+        return salaryBelow;
+    }
+
+    Double getFloor() {
+        return floor;
+    }
+
+    Double getCap() {
+        return cap;
+    }
+
+    @Override
+    public String toString() {
+        return "SalaryRule{" +
+                "kind=" + kind +
+                ", amount=" + amount +
+                ", department='" + department + '\'' +
+                ", position='" + position + '\'' +
+                ", salaryBelow=" + salaryBelow +
+                ", floor=" + floor +
+                ", cap=" + cap +
+                '}';
+    }
+}
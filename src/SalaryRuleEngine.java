@@ -0,0 +1,375 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * SalaryRuleEngine compiles a list of SalaryRules into one set-based statement:
+ *
+ *   UPDATE employees SET salary = CASE WHEN <rule 1> THEN <new 1> WHEN ... ELSE salary END
+ *   WHERE (<rule 1> OR ...) AND <new salary> <> salary
+ *
+ * preview() runs the matching aggregate (row count, payroll delta, row-identity checksum) and a small
+ * sample in one transaction, without loading the affected rows. apply() locks the same rows,
+ * re-runs the aggregate and only writes if it still matches the preview, so the update touches
+ * exactly the set that was shown to the user. Rows whose salary would not change are never written.
+ */
+public class SalaryRuleEngine {
+
+    // Summary of what a rule set would change, taken from one consistent read
+    public static class Preview {
+        private final int affectedCount;
+        private final double totalDelta;
+        private final double currentTotal;
+        private final long rowChecksum;
+        private final List<Row> sample;
+
+        Preview(int affectedCount, double totalDelta, double currentTotal, long rowChecksum, List<Row> sample) {
+            this.affectedCount = affectedCount;
+            this.totalDelta = totalDelta;
+            this.currentTotal = currentTotal;
+            this.rowChecksum = rowChecksum;
+            this.sample = sample;
+        }
+
+        public int getAffectedCount() {
+            return affectedCount;
+        }
+
+        // Change in total payroll if the rules are applied
+        public double getTotalDelta() {
+            return totalDelta;
+        }
+
+        public List<Row> getSample() {
+            return sample;
+        }
+    }
+
+    public static class Row {
+        private final int empId;
+        private final String firstName;
+        private final String lastName;
+        private final double currentSalary;
+        private final double newSalary;
+
+        Row(int empId, String firstName, String lastName, double currentSalary, double newSalary) {
+            this.empId = empId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.currentSalary = currentSalary;
+            this.newSalary = newSalary;
+        }
+
+        public int getEmpId() {
+            return empId;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public double getCurrentSalary() {
+            return currentSalary;
+        }
+
+        public double getNewSalary() {
+            return newSalary;
+        }
+    }
+
+    // The rule set as SQL fragments with their parameters, in binding order
+    private static class CompiledRules {
+        final String newSalary;
+        final List<Object> newSalaryParams = new ArrayList<>();
+        final String filter;
+        final List<Object> filterParams = new ArrayList<>();
+
+        CompiledRules(List<SalaryRule> rules) {
+            if (rules == null || rules.isEmpty()) {
+                throw new IllegalArgumentException("At least one salary rule is required.");
+            }
+            StringBuilder caseSql = new StringBuilder("CASE");
+            StringBuilder matchSql = new StringBuilder("(");
+            List<Object> matchParams = new ArrayList<>();
+            for (int i = 0; i < rules.size(); i++) {
+                SalaryRule rule = rules.get(i);
+                List<Object> condParams = new ArrayList<>();
+                String cond = condition(rule, condParams);
+
+                caseSql.append(" WHEN ").append(cond).append(" THEN ");
+                newSalaryParams.addAll(condParams);
+                caseSql.append(expression(rule, newSalaryParams));
+
+                if (i > 0) {
+                    matchSql.append(" OR ");
+                }
+                matchSql.append(cond);
+                matchParams.addAll(condParams);
+            }
+            caseSql.append(" ELSE salary END");
+            matchSql.append(")");
+
+            newSalary = caseSql.toString();
+            filter = matchSql + " AND " + newSalary + " <> salary";
+            filterParams.addAll(matchParams);
+            filterParams.addAll(newSalaryParams);
+        }
+
+        private static String condition(SalaryRule rule, List<Object> params) {
+            List<String> parts = new ArrayList<>();
+            if (rule.getDepartment() != null) {
+                parts.add("LOWER(department) = LOWER(?)");
+                params.add(rule.getDepartment());
+            }
+            if (rule.getPosition() != null) {
+                parts.add("LOWER(position) = LOWER(?)");
+                params.add(rule.getPosition());
+            }
+            if (rule.getSalaryBelow() != null) {
+                parts.add("salary < ?");
+                params.add(rule.getSalaryBelow());
+            }
+            return parts.isEmpty() ? "(1=1)" : "(" + String.join(" AND ", parts) + ")";
+        }
+
+        private static String expression(SalaryRule rule, List<Object> params) {
+            String expr;
+            switch (rule.getKind()) {
+                case PERCENT_RAISE:
+                    expr = "salary * ?";
+                    params.add(1 + rule.getAmount() / 100.0);
+                    break;
+                case FLAT_RAISE:
+                    expr = "salary + ?";
+                    params.add(rule.getAmount());
+                    break;
+                default:
+                    expr = "?";
+                    params.add(rule.getAmount());
+                    break;
+            }
+            if (rule.getFloor() != null) {
+                expr = "GREATEST(" + expr + ", ?)";
+                params.add(rule.getFloor());
+            }
+            if (rule.getCap() != null) {
+                expr = "LEAST(" + expr + ", ?)";
+                params.add(rule.getCap());
+            }
+            // A negative flat raise can still go below zero; salaries never do, as in updateEmployee
+            return "ROUND(GREATEST(" + expr + ", 0), 2)";
+        }
+    }
+
+    public static Preview preview(List<SalaryRule> rules, int sampleSize) {
+        CompiledRules compiled = new CompiledRules(rules);
+
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+
+            try {
+                Preview preview = aggregate(conn, compiled, false, sampleSize);
+                conn.commit();
+                return preview;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error previewing salary rules: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * Applies the rules as one statement, provided the locked rows still match the preview.
+     * Returns the number of employees updated, or -1 if the data changed since the preview or on error.
+     */
+    public static int apply(List<SalaryRule> rules, Preview expected) {
+        CompiledRules compiled = new CompiledRules(rules);
+
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                Preview current = aggregate(conn, compiled, true, 0);
+                if (!matches(current, expected)) {
+                    conn.rollback();
+                    System.out.println("Error: Salaries changed since the preview. Please preview again.");
+                    return -1;
+                }
+
+                int rowsAffected = update(conn, compiled, null, null);
+                if (rowsAffected != current.getAffectedCount()) {
+                    conn.rollback();
+                    System.out.println("Error: Update touched " + rowsAffected + " employee(s), expected "
+                            + current.getAffectedCount() + ". Nothing was changed.");
+                    return -1;
+                }
+                conn.commit();
+                if (rowsAffected > 0) {
+                    // Rules can match on department or position, which cached copies cannot be filtered by
+                    EmployeeDAO.publishAllChanged();
+                }
+                return rowsAffected;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                System.out.println("Error applying salary rules: " + e.getMessage());
+                return -1;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /*
+     * Applies the rules in empid ranges of chunkSize ids, committing each range separately,
+     * so very large adjustments do not hold locks on the whole table at once. The result is
+     * not atomic: if a chunk fails, earlier chunks stay committed. Returns the rows updated, or -1.
+     */
+    public static int applyInChunks(List<SalaryRule> rules, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        CompiledRules compiled = new CompiledRules(rules);
+
+        try (Connection conn = EmployeeDAO.getConnection()) {
+            int minId;
+            int maxId;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(empid), MAX(empid) FROM employees")) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return 0;
+                }
+                minId = rs.getInt(1);
+                maxId = rs.getInt(2);
+            }
+
+            int total = 0;
+            conn.setAutoCommit(false);
+            try {
+                for (long from = minId; from <= maxId; from += chunkSize) {
+                    long to = Math.min((long) maxId, from + chunkSize - 1);
+                    total += update(conn, compiled, (int) from, (int) to);
+                    conn.commit();
+                }
+                return total;
+            } catch (SQLException e) {
+                conn.rollback();
+                System.out.println("Error applying salary rules after " + total + " employee(s): " + e.getMessage());
+                return -1;
+            } finally {
+                conn.setAutoCommit(true);
+                // Earlier chunks stay committed even if a later one fails
+                if (total > 0) {
+                    EmployeeDAO.publishAllChanged();
+                }
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static boolean matches(Preview current, Preview expected) {
+        return expected != null
+                && current.affectedCount == expected.affectedCount
+                && Math.abs(current.totalDelta - expected.totalDelta) < 0.005
+                && Math.abs(current.currentTotal - expected.currentTotal) < 0.005
+                && current.rowChecksum == expected.rowChecksum;
+    }
+
+    private static Preview aggregate(Connection conn, CompiledRules compiled, boolean lock, int sampleSize)
+            throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(" + compiled.newSalary + " - salary), 0), " +
+                "COALESCE(SUM(salary), 0), " +
+                // Depends on which employees match, not just on the totals, so a swapped row is caught
+                "BIT_XOR(CRC32(CONCAT(empid, ':', salary))) FROM employees WHERE " + compiled.filter;
+        List<Object> params = new ArrayList<>(compiled.newSalaryParams);
+        params.addAll(compiled.filterParams);
+        if (lock) {
+            // Lock the matching rows so nothing can change them between the check and the update
+            sql += " FOR UPDATE";
+        }
+
+        int count;
+        double delta;
+        double total;
+        long checksum;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bind(pstmt, params, 1);
+            ResultSet rs = pstmt.executeQuery();
+            rs.next();
+            count = rs.getInt(1);
+            delta = rs.getDouble(2);
+            total = rs.getDouble(3);
+            checksum = rs.getLong(4);
+        }
+
+        List<Row> sample = new ArrayList<>();
+        if (sampleSize > 0 && count > 0) {
+            String sampleSql = "SELECT empid, first_name, last_name, salary, " + compiled.newSalary +
+                    " AS new_salary FROM employees WHERE " + compiled.filter + " ORDER BY empid LIMIT ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(sampleSql)) {
+                int next = bind(pstmt, params, 1);
+                pstmt.setInt(next, sampleSize);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    sample.add(new Row(rs.getInt(1), rs.getString(2), rs.getString(3),
+                            rs.getDouble(4), rs.getDouble(5)));
+                }
+            }
+        }
+        return new Preview(count, delta, total, checksum, sample);
+    }
+
+    private static int update(Connection conn, CompiledRules compiled, Integer fromId, Integer toId)
+            throws SQLException {
+        String where = compiled.filter;
+        List<Object> whereParams = new ArrayList<>(compiled.filterParams);
+        if (fromId != null) {
+            where += " AND empid BETWEEN ? AND ?";
+            whereParams.add(fromId);
+            whereParams.add(toId);
+        }
+        SalaryHistoryDAO.captureChanges(conn, compiled.newSalary, compiled.newSalaryParams, where, whereParams);
+
+        String sql = "UPDATE employees SET salary = " + compiled.newSalary + " WHERE " + where;
+        List<Object> params = new ArrayList<>(compiled.newSalaryParams);
+        params.addAll(whereParams);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bind(pstmt, params, 1);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    // Binds params starting at index first and returns the next free index
+    private static int bind(PreparedStatement pstmt, List<Object> params, int first) throws SQLException {
+        int index = first;
+        for (Object param : params) {
+            if (param instanceof String) {
+                pstmt.setString(index, (String) param);
+            } else if (param instanceof Double) {
+                pstmt.setDouble(index, (Double) param);
+            } else if (param instanceof Integer) {
+                pstmt.setInt(index, (Integer) param);
+            }
+            index++;
+        }
+        return index;
+    }
+}
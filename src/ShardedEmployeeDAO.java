@@ -0,0 +1,422 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/*
+ * ShardedEmployeeDAO partitions the employees table across several databases by a hash of empid.
+ * Each shard is a JDBC URL holding an employees table with the usual schema; the URLs can point at
+ * separate MySQL servers or at local embedded databases for testing.
+ *
+ * main() is a self-check against such local databases: with the H2 jar on the classpath,
+ * "java ShardedEmployeeDAO" runs it on two in-memory shards, and any JDBC URLs given as arguments
+ * are used as the shards instead (their employees tables are replaced).
+ *
+ * Point operations (getEmployeeById, updateEmployee) go to the single shard that owns the empid.
+ * Searches and updateSalariesBelowThreshold run on every shard in parallel and the results are
+ * merged in empid order. The statements themselves are the ones EmployeeDAO runs on a single database.
+ * Salary history is recorded on the shard that owns the employee, so the history queries are routed
+ * and fanned out the same way.
+ */
+public class ShardedEmployeeDAO implements AutoCloseable {
+    private final List<String> shardUrls;
+    private final String user;
+    private final String password;
+    private final ExecutorService executor;
+
+    public static final int DEFAULT_CONCURRENT_CALLERS = 16;
+
+    public ShardedEmployeeDAO(List<String> shardUrls, String user, String password) {
+        this(shardUrls, user, password, DEFAULT_CONCURRENT_CALLERS);
+    }
+
+    /*
+     * concurrentCallers is how many callers can fan out to every shard at once before their shard
+     * queries start to queue. The pool holds up to shards x concurrentCallers threads and lets
+     * idle ones exit, so a caller stuck behind slow shards does not hold up everyone else.
+     */
+    public ShardedEmployeeDAO(List<String> shardUrls, String user, String password, int concurrentCallers) {
+        if (shardUrls == null || shardUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard URL is required.");
+        }
+        if (concurrentCallers <= 0) {
+            throw new IllegalArgumentException("Concurrent callers must be positive.");
+        }
+        this.shardUrls = new ArrayList<>(shardUrls);
+        this.user = user;
+        this.password = password;
+        int threads = this.shardUrls.size() * concurrentCallers;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "employee-shard-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    public int getShardCount() {
+        return shardUrls.size();
+    }
+
+    // Mixes the id bits first so that consecutive empids spread evenly over the shards
+    public int shardFor(int empId) {
+        int h = empId * 0x9E3779B1;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shardUrls.size());
+    }
+
+    private Connection getConnection(int shard) throws SQLException {
+        return DriverManager.getConnection(shardUrls.get(shard), user, password);
+    }
+
+    public EmployeeData getEmployeeById(int empId) {
+        try (Connection conn = getConnection(shardFor(empId))) {
+            return EmployeeDAO.getEmployeeById(conn, empId);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving employee: " + e.getMessage());
+        }
+        return null;
+    }
+
+    public boolean updateEmployee(int empId, EmployeeData employeeData) {
+        if (!EmployeeDAO.isValidUpdate(employeeData)) {
+            return false;
+        }
+
+        try (Connection conn = getConnection(shardFor(empId))) {
+            return EmployeeDAO.updateEmployee(conn, empId, employeeData);
+        } catch (SQLException e) {
+            System.out.println("Error updating employee: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public List<EmployeeData> searchByName(String firstName, String lastName) {
+        return searchAllShards(conn -> EmployeeDAO.searchByName(conn, firstName, lastName),
+                "Error searching employees by name: ");
+    }
+
+    public List<EmployeeData> searchByDepartment(String department) {
+        return searchAllShards(conn -> EmployeeDAO.searchByDepartment(conn, department),
+                "Error searching employees by department: ");
+    }
+
+    public List<EmployeeData> searchByMultipleCriteria(Map<String, Object> criteria) {
+        return searchAllShards(conn -> EmployeeDAO.searchByMultipleCriteria(conn, criteria),
+                "Error in advanced search: ");
+    }
+
+    /*
+     * Runs the update on every shard, each in its own transaction, and commits only once all
+     * shards have succeeded; if any shard fails the others are rolled back. This is not a
+     * two-phase commit, so a failure during the commit step itself can still leave shards apart.
+     *
+     * The shards are updated one after another in shard order rather than in parallel. Every
+     * caller, in this process or another, then takes the shards' row locks in the same order, so
+     * two concurrent updates cannot each hold one shard while waiting on the other, which is a
+     * deadlock no single database can see.
+     */
+    public int updateSalariesBelowThreshold(double threshold, double newSalary) {
+        if (threshold < 0) {
+            System.out.println("Error: Threshold must be positive.");
+            return -1;
+        }
+        if (newSalary < 0) {
+            System.out.println("Error: New salary must be positive.");
+            return -1;
+        }
+
+        List<Connection> connections = new ArrayList<>();
+        boolean committedAny = false;
+        try {
+            for (int shard = 0; shard < shardUrls.size(); shard++) {
+                Connection conn = getConnection(shard);
+                connections.add(conn);
+                conn.setAutoCommit(false);
+            }
+
+            int rowsAffected = 0;
+            for (Connection conn : connections) {
+                rowsAffected += EmployeeDAO.updateSalariesBelowThreshold(conn, threshold, newSalary);
+            }
+            for (Connection conn : connections) {
+                conn.commit();
+                committedAny = true;
+            }
+            if (rowsAffected > 0) {
+                EmployeeDAO.publishSalariesBelowChanged(threshold);
+            }
+            return rowsAffected;
+
+        } catch (SQLException e) {
+            rollbackAll(connections);
+            // A commit failed after others succeeded: those shards' rows did change, so caches
+            // must still hear about it even though the call as a whole reports failure
+            if (committedAny) {
+                EmployeeDAO.publishSalariesBelowChanged(threshold);
+            }
+            System.out.println("Error updating salaries: " + e.getMessage());
+            return -1;
+        } finally {
+            closeAll(connections);
+        }
+    }
+
+    // Salary history lives on the shard that owns the employee (see SalaryHistoryDAO.getSalaryAsOf)
+    public Double getSalaryAsOf(int empId, LocalDate date) {
+        try (Connection conn = getConnection(shardFor(empId))) {
+            return SalaryHistoryDAO.getSalaryAsOf(conn, empId, date);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving salary history: " + e.getMessage());
+        }
+        return null;
+    }
+
+    public Map<Integer, Double> getSalariesAsOf(LocalDate date) {
+        Map<Integer, Double> salaries = new HashMap<>();
+        try {
+            for (Map<Integer, Double> shardSalaries
+                    : queryAllShards(conn -> SalaryHistoryDAO.getSalariesAsOf(conn, date))) {
+                salaries.putAll(shardSalaries);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error retrieving salary history: " + e.getMessage());
+            return new HashMap<>();
+        }
+        return salaries;
+    }
+
+    // Every shard's changes merged by date then empid; one employee's changes all come from one shard
+    public List<SalaryHistoryDAO.SalaryChange> getChangesInPeriod(LocalDate from, LocalDate to) {
+        List<SalaryHistoryDAO.SalaryChange> changes = new ArrayList<>();
+        try {
+            for (List<SalaryHistoryDAO.SalaryChange> shardChanges
+                    : queryAllShards(conn -> SalaryHistoryDAO.getChangesInPeriod(conn, from, to))) {
+                changes.addAll(shardChanges);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error retrieving salary changes: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        // Stable sort, so each employee's same-day changes keep the order their shard returned
+        changes.sort(Comparator.comparing(SalaryHistoryDAO.SalaryChange::getEffectiveDate)
+                .thenComparingInt(SalaryHistoryDAO.SalaryChange::getEmpId));
+        return changes;
+    }
+
+    /*
+     * Brings every shard's schema up to date: the date columns (EmployeeDAO.migrateDateColumns)
+     * and the salary history table (SalaryHistoryDAO.createTable). Safe to run again; returns
+     * false if any shard failed, after trying all of them.
+     */
+    public boolean migrate() {
+        boolean ok = true;
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            try (Connection conn = getConnection(shard)) {
+                EmployeeDAO.migrateDateColumns(conn);
+                SalaryHistoryDAO.createTable(conn);
+            } catch (SQLException e) {
+                System.out.println("Error migrating shard " + shard + ": " + e.getMessage());
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    private interface ShardQuery<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    // Runs query on every shard concurrently and merges the rows by empid; any shard error fails the search
+    private List<EmployeeData> searchAllShards(ShardQuery<List<EmployeeData>> query, String errorPrefix) {
+        List<EmployeeData> results = new ArrayList<>();
+        try {
+            for (List<EmployeeData> rows : queryAllShards(query)) {
+                results.addAll(rows);
+            }
+        } catch (SQLException e) {
+            System.out.println(errorPrefix + e.getMessage());
+            return new ArrayList<>();
+        }
+        results.sort(Comparator.comparingInt(EmployeeData::getEmpId));
+        return results;
+    }
+
+    // Runs query on every shard concurrently and returns each shard's result; the first error cancels the rest
+    private <T> List<T> queryAllShards(ShardQuery<T> query) throws SQLException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            final int s = shard;
+            futures.add(executor.submit(() -> {
+                try (Connection conn = getConnection(s)) {
+                    return query.run(conn);
+                }
+            }));
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+        } catch (SQLException e) {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for shard", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Shard operation failed: " + cause, cause);
+        }
+    }
+
+    private static void rollbackAll(List<Connection> connections) {
+        for (Connection conn : connections) {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                System.out.println("Error rolling back shard: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void closeAll(List<Connection> connections) {
+        for (Connection conn : connections) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.out.println("Error closing shard connection: " + e.getMessage());
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- self-check
+
+    public static void main(String[] args) throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (String arg : args) {
+            urls.add(arg);
+        }
+        if (urls.isEmpty()) {
+            urls.add("jdbc:h2:mem:shard0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            urls.add("jdbc:h2:mem:shard1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        }
+
+        try (ShardedEmployeeDAO dao = new ShardedEmployeeDAO(urls, System.getProperty("shard.user", "sa"),
+                System.getProperty("shard.password", ""))) {
+            for (int shard = 0; shard < dao.getShardCount(); shard++) {
+                try (Connection conn = dao.getConnection(shard);
+                     Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("DROP TABLE IF EXISTS salary_history");
+                    stmt.executeUpdate("DROP TABLE IF EXISTS employees");
+                    stmt.executeUpdate("CREATE TABLE employees (empid INT PRIMARY KEY, first_name VARCHAR(50), " +
+                            "last_name VARCHAR(50), email VARCHAR(100), phone VARCHAR(20), department VARCHAR(50), " +
+                            "position VARCHAR(50), salary DECIMAL(12,2), hire_date VARCHAR(20), " +
+                            "address VARCHAR(200), DOB INT, SSN INT)");
+                }
+            }
+
+            // Employees 1..20 earn 41000..60000; each row goes to the shard that owns it
+            String insert = "INSERT INTO employees (empid, first_name, last_name, email, phone, department, " +
+                    "position, salary, hire_date, address, DOB, SSN) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            int[] perShard = new int[dao.getShardCount()];
+            for (int id = 1; id <= 20; id++) {
+                int shard = dao.shardFor(id);
+                perShard[shard]++;
+                try (Connection conn = dao.getConnection(shard);
+                     PreparedStatement pstmt = conn.prepareStatement(insert)) {
+                    pstmt.setInt(1, id);
+                    pstmt.setString(2, "First" + id);
+                    pstmt.setString(3, "Last" + id);
+                    pstmt.setString(4, "emp" + id + "@example.com");
+                    pstmt.setString(5, "555-000-" + (1000 + id));
+                    pstmt.setString(6, id % 2 == 0 ? "Engineering" : "Sales");
+                    pstmt.setString(7, "Engineer");
+                    pstmt.setDouble(8, 40000 + id * 1000);
+                    pstmt.setString(9, "2020-01-15");
+                    pstmt.setString(10, id + " Main St");
+                    pstmt.setInt(11, 15061990);
+                    pstmt.setInt(12, 100000000 + id);
+                    pstmt.executeUpdate();
+                }
+            }
+            for (int shard = 0; shard < perShard.length; shard++) {
+                check(perShard[shard] > 0, "shard " + shard + " holds " + perShard[shard] + " employee(s)");
+            }
+
+            check(dao.migrate(), "migrate() added the date columns and salary history on every shard");
+            int migrated = 0;
+            for (int count : dao.queryAllShards(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM employees " +
+                             "WHERE dob_yyyymmdd = 19900615 AND hire_day = DATE '2020-01-15'")) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            })) {
+                migrated += count;
+            }
+            check(migrated == 20, "dob_yyyymmdd is generated and hire_day backfilled on every shard");
+
+            EmployeeData seven = dao.getEmployeeById(7);
+            check(seven != null && seven.getFirstName().equals("First7"), "getEmployeeById routes to the owning shard");
+
+            List<EmployeeData> engineering = dao.searchByDepartment("Engineering");
+            boolean sorted = true;
+            for (int i = 1; i < engineering.size(); i++) {
+                sorted &= engineering.get(i - 1).getEmpId() < engineering.get(i).getEmpId();
+            }
+            check(engineering.size() == 10 && sorted, "searchByDepartment merges every shard in empid order");
+
+            EmployeeData raise = new EmployeeData();
+            raise.setSalary(60000);
+            check(dao.updateEmployee(7, raise) && dao.getEmployeeById(7).getSalary() == 60000,
+                    "updateEmployee writes through to the owning shard");
+
+            // Employees 1..9 minus 7 are still below 50000
+            check(dao.updateSalariesBelowThreshold(50000, 50000) == 8, "updateSalariesBelowThreshold spans all shards");
+
+            LocalDate today = LocalDate.now();
+            LocalDate yesterday = today.minusDays(1);
+            check(Double.valueOf(60000).equals(dao.getSalaryAsOf(7, today))
+                            && Double.valueOf(47000).equals(dao.getSalaryAsOf(7, yesterday)),
+                    "getSalaryAsOf reads the owning shard's history");
+            Map<Integer, Double> salaries = dao.getSalariesAsOf(yesterday);
+            check(salaries.size() == 20 && Double.valueOf(41000).equals(salaries.get(1)),
+                    "getSalariesAsOf merges every shard");
+            check(dao.getChangesInPeriod(today, today).size() == 9, "getChangesInPeriod merges every shard");
+        }
+        System.out.println("All shard checks passed.");
+    }
+
+    private static void check(boolean ok, String description) {
+        if (!ok) {
+            System.out.println("FAILED: " + description);
+            System.exit(1);
+        }
+        System.out.println("ok: " + description);
+    }
+}